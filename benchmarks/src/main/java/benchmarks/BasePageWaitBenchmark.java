@@ -0,0 +1,137 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import pages.BasePage;
+import pages.ElementRow;
+import pages.RowQuery;
+
+// BasePage wait primitives on conditions that are already satisfied, i.e. their fixed overhead
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// Tracing off: every wait would otherwise also record a trace span
+@Fork(value = 1, jvmArgsAppend = "-Dtrace.enabled=false")
+public class BasePageWaitBenchmark {
+
+    private static final By EMAIL = By.cssSelector("#email");
+    private static final By SUBMIT = By.cssSelector("#form-submit");
+    private static final By HIDDEN_ERROR = By.cssSelector("#emailInvalidMessage");
+
+    private Fixtures fixtures;
+    private WaitPage page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixtures = new Fixtures();
+        fixtures.open("checkout.html");
+        page = new WaitPage(fixtures.driver);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public WebElement findElement() {
+        return page.find(EMAIL);
+    }
+
+    @Benchmark
+    public WebElement cachedElement() {
+        return page.cached(EMAIL);
+    }
+
+    @Benchmark
+    public void clickElement() {
+        page.click(SUBMIT);
+    }
+
+    @Benchmark
+    public void waitForElementEnabled() {
+        page.waitEnabled(EMAIL);
+    }
+
+    @Benchmark
+    public void waitForCondition() {
+        page.waitCondition();
+    }
+
+    @Benchmark
+    public void waitForAnyElementVisible() {
+        page.waitAnyVisible(HIDDEN_ERROR, EMAIL);
+    }
+
+    @Benchmark
+    public boolean isPresentAndDisplayed() {
+        return page.displayed(HIDDEN_ERROR);
+    }
+
+    @Benchmark
+    public List<ElementRow> queryRows() {
+        return page.rows();
+    }
+
+    // Exposes the protected BasePage primitives to the benchmark
+    static class WaitPage extends BasePage {
+
+        WaitPage(WebDriver driver) {
+            super(driver);
+        }
+
+        WebElement find(By locator) {
+            return findElement(locator);
+        }
+
+        WebElement cached(By locator) {
+            return cachedElement(locator);
+        }
+
+        void click(By locator) {
+            clickElement(locator);
+        }
+
+        void waitEnabled(By locator) {
+            waitForElementEnabled(locator, 5);
+        }
+
+        void waitCondition() {
+            waitForCondition(5, driver -> driver.getTitle().startsWith("Checkout"));
+        }
+
+        void waitAnyVisible(By... locators) {
+            waitForAnyElementVisible(5, locators);
+        }
+
+        boolean displayed(By locator) {
+            return isPresentAndDisplayed(locator);
+        }
+
+        List<ElementRow> rows() {
+            return queryRows(RowQuery.rows(By.cssSelector("#shipping"))
+                    .attribute("email", EMAIL, "type")
+                    .text("submit", SUBMIT));
+        }
+    }
+}
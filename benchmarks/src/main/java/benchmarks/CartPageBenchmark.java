@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pages.CartPage;
+
+// Cart extraction cost as the number of cart lines grows
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dtrace.enabled=false")
+public class CartPageBenchmark {
+
+    @Param({"3", "25", "100"})
+    public int lines;
+
+    private Fixtures fixtures;
+    private CartPage cartPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixtures = new Fixtures();
+        fixtures.open("cart.html?lines=" + lines);
+        cartPage = new CartPage(fixtures.driver);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public List<Double> getItemPrices() {
+        return cartPage.getItemPrices();
+    }
+
+    @Benchmark
+    public List<Integer> getItemQuantities() {
+        return cartPage.getItemQuantities();
+    }
+
+    @Benchmark
+    public double getTotalPriceFromWebsite() {
+        return cartPage.getTotalPriceFromWebsite();
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pages.CheckoutPage;
+
+// Full shipping form fill, keystroke mode against the single-script fast fill
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dtrace.enabled=false")
+public class CheckoutPageBenchmark {
+
+    private Fixtures fixtures;
+    private CheckoutPage typedCheckout;
+    private CheckoutPage fastCheckout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixtures = new Fixtures();
+        fixtures.open("checkout.html");
+        typedCheckout = new CheckoutPage(fixtures.driver).useFastFill(false);
+        fastCheckout = new CheckoutPage(fixtures.driver).useFastFill(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public CheckoutPage fillCompleteForm() {
+        return fill(typedCheckout);
+    }
+
+    @Benchmark
+    public CheckoutPage fillCompleteFormFast() {
+        return fill(fastCheckout);
+    }
+
+    private static CheckoutPage fill(CheckoutPage checkoutPage) {
+        return checkoutPage.fillCompleteForm(
+                "john.doe@example.com",
+                "John",
+                "Do",
+                "123 Main Street Anx",
+                "New Haven",
+                "United States",
+                "Connecticut",
+                "06512-2024",
+                "212-555-1234");
+    }
+}
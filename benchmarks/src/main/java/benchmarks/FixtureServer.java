@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the HTML fixtures under /fixtures on the classpath from an
+ * in-process HTTP server on an ephemeral localhost port.
+ */
+public class FixtureServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    public FixtureServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            try (InputStream resource = FixtureServer.class.getResourceAsStream("/fixtures" + path)) {
+                if (resource == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                byte[] body = resource.readAllBytes();
+                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    public String url(String fixture) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + fixture;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,31 @@
+package benchmarks;
+
+import java.io.IOException;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * Shared fixture server and driver for one benchmark trial.
+ */
+class Fixtures implements AutoCloseable {
+
+    final FixtureServer server;
+    final WebDriver driver;
+
+    Fixtures() throws IOException {
+        server = new FixtureServer();
+        // JavaScript on: the page objects rely on executeScript
+        driver = new HtmlUnitDriver(true);
+    }
+
+    void open(String fixture) {
+        driver.get(server.url(fixture));
+    }
+
+    @Override
+    public void close() {
+        driver.quit();
+        server.close();
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pages.CategoryPage;
+import pages.HomePage;
+
+// Category lookup and click in the secondary navigation
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dtrace.enabled=false")
+public class HomePageBenchmark {
+
+    private Fixtures fixtures;
+    private HomePage homePage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixtures = new Fixtures();
+        fixtures.open("home.html");
+        homePage = new HomePage(fixtures.driver);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public CategoryPage selectCategory() {
+        // Last button in the navigation, the worst case for the linear text scan
+        return homePage.selectCategory("Sale");
+    }
+}
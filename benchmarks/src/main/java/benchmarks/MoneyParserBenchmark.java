@@ -0,0 +1,39 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.MoneyParser;
+
+// Price parsing throughput: MoneyParser against the old regex + double parse
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyParserBenchmark {
+
+    @Param({"$279.00", "$1,299.95", "1.234,56 €", "$99.00 - $149.00", "Was $349.00 Now $279.00"})
+    public String price;
+
+    @Benchmark
+    public long moneyParser() {
+        return MoneyParser.parseCents(price);
+    }
+
+    @Benchmark
+    public double regexReplaceAndParseDouble() {
+        return Double.parseDouble(price.replaceAll("[^0-9.]", ""));
+    }
+}
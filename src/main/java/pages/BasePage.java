@@ -1,25 +1,122 @@
 package pages;
 
-import java.io.File;
-import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
-import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.By;
+import org.openqa.selenium.HasCapabilities;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
+import utils.Constants;
+import utils.DriverPool;
+import utils.NetworkMonitor;
+import utils.PagePerformance;
+import utils.ScreenshotService;
+import utils.TraceRecorder;
+import utils.WaitMetrics;
+
 public abstract class BasePage {
 
+    // Reads named child text/attributes for every row; fields are [name, childSelector, attribute]
+    private static final String ROW_QUERY_SCRIPT =
+            "var rows = document.querySelectorAll(arguments[0]);" +
+            "var fields = arguments[1];" +
+            "var out = [];" +
+            "for (var i = 0; i < rows.length; i++) {" +
+            "  var row = {};" +
+            "  for (var j = 0; j < fields.length; j++) {" +
+            "    var f = fields[j];" +
+            "    var el = f[1] ? rows[i].querySelector(f[1]) : rows[i];" +
+            "    if (!el) { row[f[0]] = null; continue; }" +
+            "    row[f[0]] = f[2] ? el.getAttribute(f[2]) : (el.innerText || el.textContent || '').trim();" +
+            "  }" +
+            "  out.push(row);" +
+            "}" +
+            "return out;";
+
+    // Navigation and Resource Timing of the current document, plus FCP, LCP and CLS from buffered observers.
+    // LCP and CLS entries are delivered asynchronously, so the callback waits one short observer round.
+    private static final String NAVIGATION_METRICS_SCRIPT =
+            "var done = arguments[arguments.length - 1];" +
+            "var out = {url: location.href};" +
+            "try {" +
+            "  var nav = performance.getEntriesByType('navigation')[0];" +
+            "  if (nav) {" +
+            "    out.navigationType = nav.type;" +
+            "    out.ttfb = nav.responseStart;" +
+            "    out.domContentLoaded = nav.domContentLoadedEventEnd;" +
+            "    out.load = nav.loadEventEnd;" +
+            "    out.navigation = {dns: nav.domainLookupEnd - nav.domainLookupStart," +
+            "      connect: nav.connectEnd - nav.connectStart, request: nav.responseStart - nav.requestStart," +
+            "      response: nav.responseEnd - nav.responseStart, domInteractive: nav.domInteractive," +
+            "      transferSize: nav.transferSize, encodedBodySize: nav.encodedBodySize," +
+            "      decodedBodySize: nav.decodedBodySize};" +
+            "  }" +
+            "  performance.getEntriesByType('paint').forEach(function (p) {" +
+            "    if (p.name === 'first-contentful-paint') { out.fcp = p.startTime; }" +
+            "  });" +
+            "  var resources = performance.getEntriesByType('resource');" +
+            "  var byType = {}, bytes = nav ? nav.transferSize : 0;" +
+            "  resources.forEach(function (r) {" +
+            "    var t = byType[r.initiatorType] || (byType[r.initiatorType] = {count: 0, transferSize: 0, duration: 0});" +
+            "    t.count++; t.transferSize += r.transferSize; t.duration += r.duration; bytes += r.transferSize;" +
+            "  });" +
+            "  out.resources = {count: resources.length, byType: byType," +
+            "    slowest: resources.slice().sort(function (a, b) { return b.duration - a.duration; }).slice(0, 5)" +
+            "      .map(function (r) { return {name: r.name.substring(0, 200), duration: r.duration, transferSize: r.transferSize}; })};" +
+            "  out.resourceTransferSize = bytes;" +
+            "} catch (e) { out.error = String(e); }" +
+            "var lcp = null, cls = 0, windowValue = 0, windowStart = 0, windowLast = 0, pending = 2;" +
+            "function finish() { if (--pending === 0) { out.lcp = lcp; out.cls = cls; done(out); } }" +
+            "function observe(type, onEntries) {" +
+            "  try {" +
+            "    var observer = new PerformanceObserver(function (list) { onEntries(list.getEntries()); });" +
+            "    observer.observe({type: type, buffered: true});" +
+            "    setTimeout(function () { onEntries(observer.takeRecords()); observer.disconnect(); finish(); }, 50);" +
+            "  } catch (e) { finish(); }" +
+            "}" +
+            "observe('largest-contentful-paint', function (entries) {" +
+            "  entries.forEach(function (e) { lcp = e.renderTime || e.loadTime || e.startTime; });" +
+            "});" +
+            // CLS is the largest session window: shifts less than 1s apart, at most 5s in total
+            "observe('layout-shift', function (entries) {" +
+            "  entries.forEach(function (e) {" +
+            "    if (e.hadRecentInput) { return; }" +
+            "    if (windowValue && (e.startTime - windowLast > 1000 || e.startTime - windowStart > 5000)) { windowValue = 0; }" +
+            "    if (!windowValue) { windowStart = e.startTime; }" +
+            "    windowValue += e.value; windowLast = e.startTime; cls = Math.max(cls, windowValue);" +
+            "  });" +
+            "});";
+
     protected WebDriver driver;
     protected WebDriverWait wait;
 
+    // Resolved element handles for this page, keyed by locator.
+    // Entries are dropped on StaleElementReferenceException or navigation.
+    private final Map<By, WebElement> elementCache = new HashMap<>();
+    // Handles found by presence alone; never handed out where a visible element is needed
+    private final Map<By, WebElement> presenceCache = new HashMap<>();
+
+    // Use the browser leased by the current thread from the shared driver pool
+    public BasePage() {
+        this(DriverPool.current());
+    }
+
     public BasePage(WebDriver driver) {
         this.driver = driver;
         // Increased timeout to 30 seconds for slow internet
@@ -28,57 +125,311 @@ public abstract class BasePage {
 
     // Click element with wait
     protected void clickElement(By locator) {
-        wait.until(ExpectedConditions.elementToBeClickable(locator)).click();
+        timedWait("clickElement", locator, wait, ExpectedConditions.elementToBeClickable(locator)).click();
     }
 
     // Wait for element visibility
     protected void waitForElement(By locator) {
-        wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        timedWait("waitForElement", locator, wait, ExpectedConditions.visibilityOfElementLocated(locator));
     }
 
     // Find element with wait
     protected WebElement findElement(By locator) {
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        return timedWait("findElement", locator, wait, ExpectedConditions.visibilityOfElementLocated(locator));
     }
 
     // Find multiple elements
     protected List<WebElement> findElements(By locator) {
-        wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(locator));
-        return driver.findElements(locator);
+        return timedWait("findElements", locator, wait, ExpectedConditions.presenceOfAllElementsLocatedBy(locator));
     }
 
     // Wait for element to be clickable and return it
     protected WebElement waitForClickable(By locator) {
-        return wait.until(ExpectedConditions.elementToBeClickable(locator));
+        return timedWait("waitForClickable", locator, wait, ExpectedConditions.elementToBeClickable(locator));
     }
 
     protected void waitForElement(WebElement element) {
-        wait.until(driver -> element.isDisplayed() && element.isEnabled());
+        timedWait("waitForElement", element, wait, driver -> element.isDisplayed() && element.isEnabled());
+    }
+
+    // Cached handle for a visible element; the first lookup waits like findElement
+    protected WebElement cachedElement(By locator) {
+        WebElement element = elementCache.get(locator);
+        if (element == null) {
+            element = findElement(locator);
+            elementCache.put(locator, element);
+        }
+        return element;
+    }
+
+    // Run an action on the cached element, re-resolving it once if the handle went stale
+    protected <T> T withElement(By locator, Function<WebElement, T> action) {
+        try {
+            return action.apply(cachedElement(locator));
+        } catch (StaleElementReferenceException e) {
+            elementCache.remove(locator);
+            return action.apply(cachedElement(locator));
+        }
+    }
+
+    // Clear a field and type into it using one cached lookup
+    protected void typeInto(By locator, String text) {
+        withElement(locator, element -> {
+            element.clear();
+            element.sendKeys(text);
+            return null;
+        });
+    }
+
+    // Check if the first element present for the locator is displayed, caching its handle
+    protected boolean isPresentAndDisplayed(By locator) {
+        try {
+            return isCachedDisplayed(locator);
+        } catch (StaleElementReferenceException e) {
+            elementCache.remove(locator);
+            presenceCache.remove(locator);
+            try {
+                return isCachedDisplayed(locator);
+            } catch (Exception retryFailure) {
+                return false;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean isCachedDisplayed(By locator) {
+        // A handle that was waited for visible is as good for a presence check
+        WebElement element = elementCache.get(locator);
+        if (element == null) {
+            element = presenceCache.get(locator);
+        }
+        if (element == null) {
+            element = findElements(locator).get(0);
+            presenceCache.put(locator, element);
+        }
+        return element.isDisplayed();
+    }
+
+    // Apply every field of the fill in one async script call.
+    // Returns the locators that could not be set (missing, still disabled, or rejected by an input mask).
+    @SuppressWarnings("unchecked")
+    protected List<By> fastFill(FormFill fill, int dependencyTimeoutSeconds) {
+        long timeoutMillis = dependencyTimeoutSeconds * 1000L;
+        long start = System.nanoTime();
+        String label = fill.getLocators().size() + " fields";
+        Duration previousScriptTimeout = null;
+        try {
+            // Worst case every field waits out its dependency timeout
+            long worstCaseMillis = timeoutMillis * fill.getLocators().size();
+            if (worstCaseMillis >= 30000) {
+                // Pooled drivers are reused by later tests, so the raised timeout is put back below
+                previousScriptTimeout = driver.manage().timeouts().getScriptTimeout();
+                driver.manage().timeouts().scriptTimeout(Duration.ofMillis(worstCaseMillis + 5000));
+            }
+            Object failed = ((JavascriptExecutor) driver).executeAsyncScript(FormFill.SCRIPT,
+                    fill.getFields(), timeoutMillis);
+            List<By> notApplied = new ArrayList<>();
+            if (failed instanceof List) {
+                for (Object index : (List<Object>) failed) {
+                    notApplied.add(fill.getLocators().get(((Number) index).intValue()));
+                }
+            }
+            // Fields left for typing mean the fill missed; only a complete fill is a hit
+            recordWait("fastFill", label, start,
+                    notApplied.isEmpty() ? WaitMetrics.Outcome.HIT : WaitMetrics.Outcome.TIMEOUT, 1);
+            return notApplied;
+        } catch (WebDriverException e) {
+            recordWait("fastFill", label, start, WaitMetrics.Outcome.EXCEPTION, 1);
+            return new ArrayList<>(fill.getLocators());
+        } finally {
+            if (previousScriptTimeout != null) {
+                DomWaits.restoreScriptTimeout(driver, previousScriptTimeout);
+            }
+        }
+    }
+
+    // Forget every cached handle, e.g. after navigating to another document
+    protected void invalidateElementCache() {
+        elementCache.clear();
+        presenceCache.clear();
     }
 
     // Check if element is displayed
     protected boolean isElementDisplayed(By locator) {
         try {
-            return wait.until(ExpectedConditions.visibilityOfElementLocated(locator)).isDisplayed();
+            return timedWait("isElementDisplayed", locator, wait,
+                    ExpectedConditions.visibilityOfElementLocated(locator)).isDisplayed();
         } catch (Exception e) {
             return false;
         }
     }
 
+    // Run a WebDriverWait, recording its duration, outcome and poll count under this page and locator.
+    // Exceptions are recorded and rethrown unchanged, so callers keep their own handling.
+    protected <T> T timedWait(String waitName, Object locator, WebDriverWait customWait,
+                              Function<? super WebDriver, T> condition) {
+        int[] polls = {0};
+        long start = System.nanoTime();
+        try {
+            T result = customWait.until(driver -> {
+                polls[0]++;
+                return condition.apply(driver);
+            });
+            recordWait(waitName, locator, start, WaitMetrics.Outcome.HIT, polls[0]);
+            return result;
+        } catch (TimeoutException e) {
+            recordWait(waitName, locator, start, WaitMetrics.Outcome.TIMEOUT, polls[0]);
+            throw e;
+        } catch (RuntimeException e) {
+            recordWait(waitName, locator, start, WaitMetrics.Outcome.EXCEPTION, polls[0]);
+            throw e;
+        }
+    }
+
+    private void recordWait(String waitName, Object locator, long startNanos,
+                            WaitMetrics.Outcome outcome, int polls) {
+        long endNanos = System.nanoTime();
+        WaitMetrics.getInstance().record(getClass().getSimpleName(), waitName, String.valueOf(locator),
+                endNanos - startNanos, outcome, polls);
+
+        Map<String, Object> args = new LinkedHashMap<>();
+        args.put("locator", String.valueOf(locator));
+        args.put("outcome", outcome.name());
+        args.put("polls", polls);
+        TraceRecorder trace = TraceRecorder.getInstance();
+        trace.complete(getClass().getSimpleName() + "." + waitName, "wait", startNanos, endNanos, args);
+        // The enclosing page method spans the whole wait, even one without browser commands
+        trace.markPageActivity(startNanos);
+        trace.extendPageFrames(endNanos);
+    }
+
+    // Read every row matched by the query in a single script round trip.
+    // Waits (re-running the same script) until at least one row is present.
+    protected List<ElementRow> queryRows(RowQuery query) {
+        return timedWait("queryRows", query.getContainerSelector(), wait, driver -> {
+            List<ElementRow> rows = runRowQuery(query);
+            return rows.isEmpty() ? null : rows;
+        });
+    }
+
+    // Read every row matched by the query without waiting; may return an empty list
+    @SuppressWarnings("unchecked")
+    protected List<ElementRow> runRowQuery(RowQuery query) {
+        Object raw = ((JavascriptExecutor) driver).executeScript(ROW_QUERY_SCRIPT,
+                query.getContainerSelector(), query.getFields());
+        List<ElementRow> rows = new ArrayList<>();
+        if (raw instanceof List) {
+            List<Object> rawRows = (List<Object>) raw;
+            for (int i = 0; i < rawRows.size(); i++) {
+                Map<String, String> values = new LinkedHashMap<>();
+                ((Map<String, Object>) rawRows.get(i)).forEach((key, value) ->
+                        values.put(key, value == null ? null : String.valueOf(value)));
+                rows.add(new ElementRow(i, values));
+            }
+        }
+        return rows;
+    }
+
+    // Call before an action that may navigate: returns the current document's performance.timeOrigin
+    // and starts counting transferred bytes from here
+    protected double beginNavigation() {
+        if (!PagePerformance.isEnabled()) {
+            return Double.NaN;
+        }
+        NetworkMonitor monitor = NetworkMonitor.forDriver(driver);
+        if (monitor != null) {
+            monitor.takeTransferredBytes();
+        }
+        try {
+            Object origin = ((JavascriptExecutor) driver).executeScript("return performance.timeOrigin;");
+            return origin instanceof Number ? ((Number) origin).doubleValue() : Double.NaN;
+        } catch (WebDriverException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Record the browser's own timing of the navigation an action started.
+     * Waits for the new document to finish loading, or only for
+     * DOMContentLoaded under the eager page load strategy so measuring doesn't
+     * cost what eager loading saves. If the document stays the same and the
+     * network goes quiet, the action was a same-document update: the current
+     * document is measured and marked so. A navigation still loading after
+     * LONG_WAIT is measured as it stands and marked timedOut. Measurement
+     * problems are logged, never thrown.
+     */
+    @SuppressWarnings("unchecked")
+    protected void recordNavigation(String action, double timeOriginBefore) {
+        if (!PagePerformance.isEnabled()) {
+            return;
+        }
+        NetworkMonitor monitor = NetworkMonitor.forDriver(driver);
+        Duration quiet = Duration.ofMillis(NetworkMonitor.DEFAULT_QUIET_MILLIS);
+        boolean[] sameDocument = {false};
+        boolean timedOut = false;
+        // Eager sessions return from navigation at DOMContentLoaded; waiting for "complete" would undo that
+        boolean eager = isEagerPageLoad();
+        try {
+            WebDriverWait loadWait = new WebDriverWait(driver, Duration.ofSeconds(Constants.LONG_WAIT));
+            timedWait("awaitNavigation", action, loadWait, driver -> {
+                Map<String, Object> state = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(
+                        "return {origin: performance.timeOrigin, ready: document.readyState};");
+                boolean changed = !(state.get("origin") instanceof Number)
+                        || ((Number) state.get("origin")).doubleValue() != timeOriginBefore;
+                // A pending cross-document navigation keeps its document request in flight
+                sameDocument[0] = !changed && monitor != null && monitor.isIdleFor(quiet);
+                Object ready = state.get("ready");
+                boolean loaded = eager ? !"loading".equals(ready) : "complete".equals(ready);
+                return loaded && (changed || sameDocument[0]);
+            });
+        } catch (TimeoutException e) {
+            System.out.println("Warning: navigation for " + action + " still loading after "
+                    + Constants.LONG_WAIT + "s, recording it as timed out");
+            sameDocument[0] = false;
+            timedOut = true;
+        } catch (WebDriverException | ClassCastException e) {
+            System.out.println("Warning: navigation metrics for " + action + " not recorded - " + e.getMessage());
+            return;
+        }
+        try {
+            Map<String, Object> metrics = new LinkedHashMap<>(
+                    (Map<String, Object>) ((JavascriptExecutor) driver).executeAsyncScript(NAVIGATION_METRICS_SCRIPT));
+            metrics.put("sameDocument", sameDocument[0]);
+            metrics.put("timedOut", timedOut);
+            // DevTools also counts cross-origin bytes that Resource Timing reports as 0
+            metrics.put("transferredBytes", monitor != null
+                    ? monitor.takeTransferredBytes()
+                    : metrics.getOrDefault("resourceTransferSize", 0));
+            PagePerformance.getInstance().record(getClass().getSimpleName(), action, metrics);
+        } catch (WebDriverException | ClassCastException e) {
+            System.out.println("Warning: navigation metrics for " + action + " not recorded - " + e.getMessage());
+        }
+    }
+
+    private boolean isEagerPageLoad() {
+        if (!(driver instanceof HasCapabilities)) {
+            return false;
+        }
+        Object strategy = ((HasCapabilities) driver).getCapabilities().getCapability("pageLoadStrategy");
+        return strategy != null && !"normal".equals(String.valueOf(strategy));
+    }
+
     // Scroll to top of page
     public void scrollToTop() {
         ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, 0);");
     }
 
-    public void takeScreenshot(String fileName) {
+    // Capture the screenshot and hand it to the background writer; returns right after capture
+    // with the PNG bytes, e.g. for a visual check, or null if the capture failed
+    public byte[] takeScreenshot(String fileName) {
         try {
-            TakesScreenshot screenshot = (TakesScreenshot) driver;
-            File srcFile = screenshot.getScreenshotAs(OutputType.FILE);
-            File destFile = new File("screenshots/" + fileName);
-            FileUtils.copyFile(srcFile, destFile);
-            System.out.println("✓ Screenshot saved: " + fileName);
-        } catch (IOException e) {
-            System.err.println("Failed to save screenshot: " + e.getMessage());
+            byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            ScreenshotService.getInstance().save(png, fileName);
+            return png;
+        } catch (WebDriverException e) {
+            System.err.println("Failed to capture screenshot: " + e.getMessage());
+            return null;
         }
     }
 
@@ -88,7 +439,7 @@ public abstract class BasePage {
     protected void waitForElementEnabled(By locator, int timeoutSeconds) {
         try {
             WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-            customWait.until(driver -> {
+            timedWait("waitForElementEnabled", locator, customWait, driver -> {
                 try {
                     WebElement element = driver.findElement(locator);
                     return element.isEnabled() && element.isDisplayed();
@@ -105,7 +456,7 @@ public abstract class BasePage {
     protected void waitForCondition(int timeoutSeconds, java.util.function.Predicate<WebDriver> condition) {
         try {
             WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-            customWait.until(condition::test);
+            timedWait("waitForCondition", "condition", customWait, condition::test);
         } catch (Exception e) {
             // Timeout acceptable - condition not met
         }
@@ -115,21 +466,78 @@ public abstract class BasePage {
     protected void waitForUrlContains(String urlFragment, int timeoutSeconds) {
         try {
             WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-            customWait.until(driver -> driver.getCurrentUrl().contains(urlFragment));
+            timedWait("waitForUrlContains", "url~" + urlFragment, customWait,
+                    driver -> driver.getCurrentUrl().contains(urlFragment));
         } catch (Exception e) {
             System.out.println("Warning: URL does not contain '" + urlFragment + "'");
         }
     }
 
-    // Wait for any of multiple elements to be visible
+    // Start watching requests before an action whose requests waitForNetworkIdle should see:
+    // attaches the DevTools monitor, or without DevTools counts the page's fetch/XHR calls
+    protected void trackPageRequests() {
+        if (NetworkMonitor.forDriver(driver) == null) {
+            RequestTracker.install(driver);
+        }
+    }
+
+    // Wait until no network request has been in flight for the default quiet window
+    protected boolean waitForNetworkIdle(int timeoutSeconds) {
+        return waitForNetworkIdle(NetworkMonitor.DEFAULT_QUIET_MILLIS, timeoutSeconds);
+    }
+
+    // Wait until no network request has been in flight for quietMillis.
+    // Without DevTools, waits for the fetch/XHR calls counted in the page (see trackPageRequests),
+    // and only polls document.readyState when no script can run.
+    protected boolean waitForNetworkIdle(long quietMillis, int timeoutSeconds) {
+        NetworkMonitor monitor = NetworkMonitor.forDriver(driver);
+        if (monitor != null) {
+            long start = System.nanoTime();
+            boolean idle = monitor.awaitIdle(Duration.ofMillis(quietMillis), Duration.ofSeconds(timeoutSeconds));
+            recordWait("waitForNetworkIdle", "network", start,
+                    idle ? WaitMetrics.Outcome.HIT : WaitMetrics.Outcome.TIMEOUT, 1);
+            if (!idle) {
+                System.out.println("Warning: network still busy after " + timeoutSeconds + "s ("
+                        + monitor.getInFlightCount() + " requests in flight)");
+            }
+            return idle;
+        }
+        long start = System.nanoTime();
+        Boolean idle = RequestTracker.awaitIdle(driver, Duration.ofMillis(quietMillis),
+                Duration.ofSeconds(timeoutSeconds));
+        if (idle != null) {
+            recordWait("waitForNetworkIdle", "page requests", start,
+                    idle ? WaitMetrics.Outcome.HIT : WaitMetrics.Outcome.TIMEOUT, 1);
+            return idle;
+        }
+        try {
+            WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
+            timedWait("waitForNetworkIdle", "document.readyState", customWait, driver -> "complete".equals(
+                    ((JavascriptExecutor) driver).executeScript("return document.readyState;")));
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Wait for any of multiple elements to be visible.
+    // Resolves on the DOM mutation that reveals one of them; polls only if the observer can't be injected.
     protected void waitForAnyElementVisible(int timeoutSeconds, By... locators) {
+        String label = Arrays.toString(locators);
+        long start = System.nanoTime();
+        Integer matched = DomWaits.awaitAnyVisible(driver, Duration.ofSeconds(timeoutSeconds), locators);
+        if (matched != null) {
+            recordWait("waitForAnyElementVisible", label, start,
+                    matched >= 0 ? WaitMetrics.Outcome.HIT : WaitMetrics.Outcome.TIMEOUT, 1);
+            return;
+        }
         try {
             WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-            customWait.until(driver -> {
+            timedWait("waitForAnyElementVisible", label, customWait, driver -> {
                 for (By locator : locators) {
                     try {
-                        if (driver.findElements(locator).size() > 0 && 
-                            driver.findElements(locator).get(0).isDisplayed()) {
+                        List<WebElement> elements = driver.findElements(locator);
+                        if (!elements.isEmpty() && elements.get(0).isDisplayed()) {
                             return true;
                         }
                     } catch (Exception e) {
@@ -8,6 +8,8 @@ import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
+import utils.MoneyParser;
+
 public class CartPage extends BasePage {
 
     private By cartItemCount = By.cssSelector(".quantity-count");
@@ -15,19 +17,27 @@ public class CartPage extends BasePage {
     private By cartIcon = By.cssSelector(".minicart-link");
     private By cartItems = By.cssSelector(".product-cart-wrapper.row");
     private By increaseQuantityButton = By.cssSelector(".quantity__counter-button.quantity__counter-plus");
+    private By itemName = By.cssSelector(".line-item-name");
     private By itemPrice = By.cssSelector(".pricing > p:nth-child(2)");
     private By itemQuantity = By.cssSelector(".quantity__counter-value");
     private By totalPrice = By.cssSelector(".cart-total__value.cart-total--grand.estimated-total");
     private By checkoutButton = By.cssSelector(".checkout__button");
 
+    public CartPage() {
+        super();
+    }
+
     public CartPage(WebDriver driver) {
         super(driver);
     }
 
     public CartPage openCart() {
         scrollToTop();
+        double timeOrigin = beginNavigation();
         clickElement(cartIcon);
+        invalidateElementCache();
         waitForElement(cartItems);
+        recordNavigation("openCart", timeOrigin);
         return this;
     }
 
@@ -37,13 +47,11 @@ public class CartPage extends BasePage {
             WebElement item = items.get(itemIndex);
             WebElement plusButton = item.findElement(increaseQuantityButton);
             waitForElement(plusButton);
+            trackPageRequests();
             plusButton.click();
 
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            // Wait for the cart update request instead of a fixed sleep
+            waitForNetworkIdle(10);
         }
         return this;
     }
@@ -57,49 +65,65 @@ public class CartPage extends BasePage {
         }
     }
 
+    // Read name, price and quantity text for every cart line in one round trip
+    private List<ElementRow> readCartLines() {
+        return queryRows(RowQuery.rows(cartItems)
+                .text("name", itemName)
+                .text("price", itemPrice)
+                .text("quantity", itemQuantity));
+    }
+
+    // Get list of item prices in exact cents; a missing or unreadable price fails loudly
+    public List<Long> getItemPricesInCents() {
+        List<Long> prices = new ArrayList<>();
+
+        for (ElementRow line : readCartLines()) {
+            String priceText = line.get("price");
+            if (priceText == null) {
+                throw new IllegalStateException("Cart line " + (line.getIndex() + 1) + " has no price");
+            }
+            prices.add(MoneyParser.parseCents(priceText));
+        }
+        return prices;
+    }
+
     // Get list of item prices
     public List<Double> getItemPrices() {
         List<Double> prices = new ArrayList<>();
-        List<WebElement> items = findElements(cartItems);
-
-        for (WebElement item : items) {
-            try {
-                String priceText = item.findElement(itemPrice).getText().trim();
-                // Remove currency symbols and parse
-                priceText = priceText.replaceAll("[^0-9.]", "");
-                prices.add(Double.parseDouble(priceText));
-            } catch (Exception e) {
-                prices.add(0.0);
-            }
+        for (long cents : getItemPricesInCents()) {
+            prices.add(MoneyParser.toDouble(cents));
         }
         return prices;
     }
 
+    // Get the product name of every cart line; lines without a readable name are "Item <n>"
+    public List<String> getItemNames() {
+        List<String> names = new ArrayList<>();
+        for (ElementRow line : readCartLines()) {
+            String name = line.get("name");
+            names.add(name == null || name.isEmpty() ? "Item " + (line.getIndex() + 1) : name);
+        }
+        return names;
+    }
+
     // Get list of item quantities
     public List<Integer> getItemQuantities() {
         List<Integer> quantities = new ArrayList<>();
-        List<WebElement> items = findElements(cartItems);
 
-        for (WebElement item : items) {
-            try {
-                String qtyText = item.findElement(itemQuantity).getText().trim();
-                quantities.add(Integer.parseInt(qtyText));
-            } catch (Exception e) {
-                quantities.add(1);
-            }
+        for (ElementRow line : readCartLines()) {
+            quantities.add(line.getInt("quantity", 1));
         }
         return quantities;
     }
 
+    // Get total price from website in exact cents
+    public long getTotalPriceInCents() {
+        return MoneyParser.parseCents(findElement(totalPrice).getText());
+    }
+
     // Get total price from website
     public double getTotalPriceFromWebsite() {
-        try {
-            String totalText = findElement(totalPrice).getText().trim();
-            totalText = totalText.replaceAll("[^0-9.]", "");
-            return Double.parseDouble(totalText);
-        } catch (Exception e) {
-            return 0.0;
-        }
+        return MoneyParser.toDouble(getTotalPriceInCents());
     }
 
     public CartPage clickCheckout() {
@@ -107,8 +131,10 @@ public class CartPage extends BasePage {
 
         // Use JavaScript click to avoid interception by header elements
         WebElement checkoutBtn = findElement(checkoutButton);
-        ((JavascriptExecutor) driver).executeScript("arguments[0].click();", checkoutBtn);        // try {
-       
+        double timeOrigin = beginNavigation();
+        ((JavascriptExecutor) driver).executeScript("arguments[0].click();", checkoutBtn);
+        invalidateElementCache();
+        recordNavigation("clickCheckout", timeOrigin);
 
         return this;
     }
@@ -13,6 +13,10 @@ public class CategoryPage extends BasePage {
     private By productCards = By.cssSelector(".product-tile-content");
     private By addToCartButton = By.cssSelector("button.add-to-cart");
     
+    public CategoryPage() {
+        super();
+    }
+
     public CategoryPage(WebDriver driver) {
         super(driver);
     }
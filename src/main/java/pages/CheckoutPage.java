@@ -1,5 +1,8 @@
 package pages;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
@@ -26,6 +29,12 @@ public class CheckoutPage extends BasePage {
     private By phoneError = By.cssSelector("div#shippingAddressTelephoneNumber.invalid-feedback");
     private By zipError = By.cssSelector("div#shippingAddressZipCode.invalid-feedback");
 
+    private boolean fastFill = Boolean.getBoolean("checkout.fastFill");
+
+    public CheckoutPage() {
+        super();
+    }
+
     public CheckoutPage(WebDriver driver) {
         super(driver);
     }
@@ -38,6 +47,11 @@ public class CheckoutPage extends BasePage {
         return this;
     }
 
+    public CheckoutPage waitForCheckoutForm() {
+        waitForElement(emailField);
+        return this;
+    }
+
     public CheckoutPage waitForZipFieldEnabled() {
         // Use the general method from BasePage
         waitForElementEnabled(zipField, 5);
@@ -51,50 +65,53 @@ public class CheckoutPage extends BasePage {
             driver.getCurrentUrl().contains("billing") ||
             driver.getCurrentUrl().contains("review")
         );
+        // Let the next step finish loading before interacting with it
+        waitForNetworkIdle(10);
+        // Handles cached on the previous step belong to the old document
+        invalidateElementCache();
         return this;
     }
 
     // ===== FORM FILLING METHODS WITH FLUENT INTERFACE =====
 
     public CheckoutPage fillEmail(String email) {
-        findElement(emailField).clear();
-        findElement(emailField).sendKeys(email);
+        typeInto(emailField, email);
         return this;
     }
 
     public CheckoutPage fillFirstName(String firstName) {
-        findElement(firstNameField).clear();
-        findElement(firstNameField).sendKeys(firstName);
+        typeInto(firstNameField, firstName);
         return this;
     }
 
     public CheckoutPage fillLastName(String lastName) {
-        findElement(lastNameField).clear();
-        findElement(lastNameField).sendKeys(lastName);
+        typeInto(lastNameField, lastName);
         return this;
     }
 
     public CheckoutPage fillAddress(String address) {
-        findElement(addressField).clear();
-        findElement(addressField).sendKeys(address);
+        typeInto(addressField, address);
         return this;
     }
 
     public CheckoutPage fillCity(String city) {
-        findElement(cityField).clear();
-        findElement(cityField).sendKeys(city);
+        typeInto(cityField, city);
         return this;
     }
 
     public CheckoutPage selectCountry(String country) {
-        Select countrySelect = new Select(findElement(countryDropdown));
-        countrySelect.selectByVisibleText(country);
+        withElement(countryDropdown, element -> {
+            new Select(element).selectByVisibleText(country);
+            return null;
+        });
         return this;
     }
 
     public CheckoutPage selectState(String state) {
-        Select stateSelect = new Select(findElement(stateDropdown));
-        stateSelect.selectByVisibleText(state);
+        withElement(stateDropdown, element -> {
+            new Select(element).selectByVisibleText(state);
+            return null;
+        });
         return this;
     }
 
@@ -104,7 +121,7 @@ public class CheckoutPage extends BasePage {
             waitForElementEnabled(zipField, 5);
             
             // Try normal interaction first
-            WebElement zipElement = findElement(zipField);
+            WebElement zipElement = cachedElement(zipField);
             
             // Scroll element into view
             ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block: 'center'});", zipElement);
@@ -129,13 +146,21 @@ public class CheckoutPage extends BasePage {
     }
 
     public CheckoutPage fillPhone(String phone) {
-        findElement(phoneField).clear();
-        findElement(phoneField).sendKeys(phone);
+        typeInto(phoneField, phone);
+        return this;
+    }
+
+    // Fill every field in a single script call instead of one wait/clear/type sequence per field
+    public CheckoutPage useFastFill(boolean fastFill) {
+        this.fastFill = fastFill;
         return this;
     }
 
     public CheckoutPage fillCompleteForm(String email, String firstName, String lastName,
                                           String address, String city, String country, String state, String zip, String phone) {
+        if (fastFill) {
+            return fastFillCompleteForm(email, firstName, lastName, address, city, country, state, zip, phone);
+        }
         return this.fillEmail(email)
                    .fillFirstName(firstName)
                    .fillLastName(lastName)
@@ -147,47 +172,70 @@ public class CheckoutPage extends BasePage {
                    .fillPhone(phone);
     }
 
+    private CheckoutPage fastFillCompleteForm(String email, String firstName, String lastName,
+                                              String address, String city, String country, String state, String zip, String phone) {
+        // Order matters: state options load after country, zip is enabled after state
+        FormFill form = new FormFill()
+                .text(emailField, email)
+                .text(firstNameField, firstName)
+                .text(lastNameField, lastName)
+                .text(addressField, address)
+                .text(cityField, city)
+                .select(countryDropdown, country)
+                .select(stateDropdown, state)
+                .text(zipField, zip)
+                .text(phoneField, phone);
+
+        Map<By, String> values = new HashMap<>();
+        values.put(emailField, email);
+        values.put(firstNameField, firstName);
+        values.put(lastNameField, lastName);
+        values.put(addressField, address);
+        values.put(cityField, city);
+        values.put(countryDropdown, country);
+        values.put(stateDropdown, state);
+        values.put(zipField, zip);
+        values.put(phoneField, phone);
+
+        // Fields rejected by the script (e.g. masked inputs) are typed for real
+        for (By locator : fastFill(form, 5)) {
+            System.out.println("Fast fill fell back to typing for " + locator);
+            if (locator.equals(countryDropdown)) {
+                selectCountry(country);
+            } else if (locator.equals(stateDropdown)) {
+                selectState(state);
+            } else if (locator.equals(zipField)) {
+                fillZip(zip);
+            } else {
+                typeInto(locator, values.get(locator));
+            }
+        }
+        return this;
+    }
+
     public CheckoutPage clickContinueToPayment() {
         clickElement(continueToPaymentButton);
+        // May move on to the next step; cached handles would be stale or skip the visibility wait
+        invalidateElementCache();
         return this;
     }
 
     // ===== VALIDATION METHODS =====
 
     public boolean isEmailErrorDisplayed() {
-        try {
-            return findElements(emailError).size() > 0 && 
-                   findElements(emailError).get(0).isDisplayed();
-        } catch (Exception e) {
-            return false;
-        }
+        return isPresentAndDisplayed(emailError);
     }
 
     public boolean isFirstNameErrorDisplayed() {
-        try {
-            return findElements(firstNameError).size() > 0 && 
-                   findElements(firstNameError).get(0).isDisplayed();
-        } catch (Exception e) {
-            return false;
-        }
+        return isPresentAndDisplayed(firstNameError);
     }
 
     public boolean isZipErrorDisplayed() {
-        try {
-            return findElements(zipError).size() > 0 && 
-                   findElements(zipError).get(0).isDisplayed();
-        } catch (Exception e) {
-            return false;
-        }
+        return isPresentAndDisplayed(zipError);
     }
 
     public boolean isPhoneErrorDisplayed() {
-        try {
-            return findElements(phoneError).size() > 0 && 
-                   findElements(phoneError).get(0).isDisplayed();
-        } catch (Exception e) {
-            return false;
-        }
+        return isPresentAndDisplayed(phoneError);
     }
 
     public boolean isOnPaymentPage() {
@@ -196,18 +244,18 @@ public class CheckoutPage extends BasePage {
     }
 
     public String getEmailErrorText() {
-        return findElement(emailError).getText();
+        return withElement(emailError, WebElement::getText);
     }
 
     public String getFirstNameErrorText() {
-        return findElement(firstNameError).getText();
+        return withElement(firstNameError, WebElement::getText);
     }
 
     public String getZipErrorText() {
-        return findElement(zipError).getText();
+        return withElement(zipError, WebElement::getText);
     }
 
     public String getPhoneErrorText() {
-        return findElement(phoneError).getText();
+        return withElement(phoneError, WebElement::getText);
     }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package pages;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Push-based DOM waits. A single MutationObserver is installed per document
+ * (window.__domWaits) and every pending wait registers a matcher with it, so
+ * a wait resolves on the mutation that satisfies it, in one async script call,
+ * rather than on the next WebDriver poll.
+ */
+class DomWaits {
+
+    // arguments: selectors, timeoutMillis, callback -> index of the first visible selector, or -1
+    private static final String ANY_VISIBLE_SCRIPT =
+            "var selectors = arguments[0], timeout = arguments[1], done = arguments[arguments.length - 1];" +
+            "var w = window.__domWaits;" +
+            "if (!w) {" +
+            "  w = window.__domWaits = { pending: [] };" +
+            "  w.visible = function (el) {" +
+            "    if (!(el.offsetWidth || el.offsetHeight || el.getClientRects().length)) return false;" +
+            "    var style = window.getComputedStyle(el);" +
+            "    return style.visibility !== 'hidden' && style.display !== 'none';" +
+            "  };" +
+            "  w.check = function () {" +
+            "    w.pending = w.pending.filter(function (p) { return !p(); });" +
+            "    if (!w.pending.length) { w.observer.disconnect(); w.observing = false; }" +
+            "  };" +
+            "  w.observer = new MutationObserver(function () { w.check(); });" +
+            "}" +
+            "function firstVisible() {" +
+            "  for (var i = 0; i < selectors.length; i++) {" +
+            "    var els = document.querySelectorAll(selectors[i]);" +
+            "    for (var j = 0; j < els.length; j++) { if (w.visible(els[j])) return i; }" +
+            "  }" +
+            "  return -1;" +
+            "}" +
+            "var found = firstVisible();" +
+            "if (found >= 0) { done(found); return; }" +
+            "var settled = false;" +
+            "var timer = setTimeout(function () { settled = true; done(-1); }, timeout);" +
+            "w.pending.push(function () {" +
+            "  if (settled) return true;" +
+            "  var i = firstVisible();" +
+            "  if (i < 0) return false;" +
+            "  settled = true; clearTimeout(timer); done(i); return true;" +
+            "});" +
+            "if (!w.observing) {" +
+            "  w.observer.observe(document.documentElement, {childList: true, subtree: true, attributes: true," +
+            "    attributeFilter: ['class', 'style', 'hidden', 'aria-hidden']});" +
+            "  w.observing = true;" +
+            "}";
+
+    // Async script timeout the driver is known to allow (WebDriver default is 30s)
+    private static final long DEFAULT_SCRIPT_TIMEOUT_MILLIS = 30000;
+
+    private DomWaits() {
+    }
+
+    /**
+     * Wait until any locator matches a visible element.
+     *
+     * @return index of the locator that matched, -1 on timeout,
+     *         or null when the observer could not be used (non-CSS locator, script error)
+     */
+    static Integer awaitAnyVisible(WebDriver driver, Duration timeout, By... locators) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        List<String> selectors = new ArrayList<>();
+        try {
+            for (By locator : locators) {
+                selectors.add(RowQuery.cssOf(locator));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        long timeoutMillis = timeout.toMillis();
+        Duration previousScriptTimeout = null;
+        try {
+            if (timeoutMillis >= DEFAULT_SCRIPT_TIMEOUT_MILLIS) {
+                // Pooled drivers are reused by later tests, so the raised timeout is put back below
+                previousScriptTimeout = driver.manage().timeouts().getScriptTimeout();
+                driver.manage().timeouts().scriptTimeout(Duration.ofMillis(timeoutMillis + 5000));
+            }
+            Object result = ((JavascriptExecutor) driver).executeAsyncScript(ANY_VISIBLE_SCRIPT,
+                    selectors, timeoutMillis);
+            return result instanceof Number ? ((Number) result).intValue() : -1;
+        } catch (ScriptTimeoutException e) {
+            // The observer ran for the whole timeout; polling again would only double the wait
+            return -1;
+        } catch (WebDriverException e) {
+            return null;
+        } finally {
+            if (previousScriptTimeout != null) {
+                restoreScriptTimeout(driver, previousScriptTimeout);
+            }
+        }
+    }
+
+    static void restoreScriptTimeout(WebDriver driver, Duration scriptTimeout) {
+        try {
+            driver.manage().timeouts().scriptTimeout(scriptTimeout);
+        } catch (WebDriverException e) {
+            System.out.println("Warning: could not restore the script timeout - " + e.getMessage());
+        }
+    }
+}
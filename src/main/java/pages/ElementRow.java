@@ -0,0 +1,52 @@
+package pages;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Values read for one row of a {@link RowQuery}. A value is null when the
+ * row has no matching child.
+ */
+public final class ElementRow {
+
+    private final int index;
+    private final Map<String, String> values;
+
+    ElementRow(int index, Map<String, String> values) {
+        this.index = index;
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String get(String name) {
+        return values.get(name);
+    }
+
+    public boolean has(String name) {
+        return values.get(name) != null;
+    }
+
+    public int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "Row " + index + " " + values;
+    }
+}
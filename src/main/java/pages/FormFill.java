@@ -0,0 +1,89 @@
+package pages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+
+/**
+ * An ordered set of form values applied by one async script call. Each field
+ * waits (inside the browser) until it exists, is enabled and, for selects,
+ * offers the wanted option, so dependent fields such as country -> state -> zip
+ * are filled in order. Input, change and blur events are dispatched so the
+ * site's validators run as if the user had typed.
+ */
+public class FormFill {
+
+    // arguments: fields [selector, value, kind], dependencyTimeoutMillis, callback -> indexes of fields not applied
+    static final String SCRIPT =
+            "var fields = arguments[0], timeout = arguments[1], done = arguments[arguments.length - 1];" +
+            "var failed = [];" +
+            "function ready(f) {" +
+            "  var el = document.querySelector(f[0]);" +
+            "  if (!el || el.disabled || el.readOnly) return null;" +
+            "  if (f[2] === 'select') {" +
+            "    for (var i = 0; i < el.options.length; i++) {" +
+            "      if (el.options[i].text.trim() === f[1]) return el;" +
+            "    }" +
+            "    return null;" +
+            "  }" +
+            "  return el;" +
+            "}" +
+            "function fire(el, type) { el.dispatchEvent(new Event(type, {bubbles: true})); }" +
+            "function apply(f, el) {" +
+            "  el.focus();" +
+            "  if (f[2] === 'select') {" +
+            "    for (var i = 0; i < el.options.length; i++) {" +
+            "      if (el.options[i].text.trim() === f[1]) { el.selectedIndex = i; break; }" +
+            "    }" +
+            "  } else {" +
+            "    var proto = el.tagName === 'TEXTAREA' ? HTMLTextAreaElement.prototype : HTMLInputElement.prototype;" +
+            "    Object.getOwnPropertyDescriptor(proto, 'value').set.call(el, f[1]);" +
+            "  }" +
+            "  fire(el, 'input'); fire(el, 'change');" +
+            "  el.blur(); fire(el, 'focusout');" +
+            "  return f[2] === 'select' || el.value === f[1];" +
+            "}" +
+            "function next(index, started) {" +
+            "  if (index >= fields.length) { done(failed); return; }" +
+            "  var f = fields[index], el = ready(f);" +
+            "  if (el) {" +
+            "    if (!apply(f, el)) failed.push(index);" +
+            "    next(index + 1, Date.now());" +
+            "  } else if (Date.now() - started > timeout) {" +
+            "    failed.push(index);" +
+            "    next(index + 1, Date.now());" +
+            "  } else {" +
+            "    setTimeout(function () { next(index, started); }, 25);" +
+            "  }" +
+            "}" +
+            "next(0, Date.now());";
+
+    private final List<By> locators = new ArrayList<>();
+    private final List<List<String>> fields = new ArrayList<>();
+
+    // Set a text input's value
+    public FormFill text(By locator, String value) {
+        return add(locator, value, "input");
+    }
+
+    // Choose a select option by its visible text
+    public FormFill select(By locator, String visibleText) {
+        return add(locator, visibleText, "select");
+    }
+
+    private FormFill add(By locator, String value, String kind) {
+        locators.add(locator);
+        fields.add(Arrays.asList(RowQuery.cssOf(locator), value == null ? "" : value, kind));
+        return this;
+    }
+
+    List<By> getLocators() {
+        return locators;
+    }
+
+    List<List<String>> getFields() {
+        return fields;
+    }
+}
@@ -11,21 +11,32 @@ public class HomePage extends BasePage {
 
     private By categoryItems = By.cssSelector(".secondary-navigation__button");
 
+    public HomePage() {
+        super();
+    }
+
     public HomePage(WebDriver driver) {
         super(driver);
     }
 
    
     public void goToHomePage(String url) {
+        double timeOrigin = beginNavigation();
         driver.get(url);
+        invalidateElementCache();
+        recordNavigation("goToHomePage", timeOrigin);
     }
 
     public CategoryPage selectCategory(String categoryName) {
-        List<WebElement> categories = driver.findElements(categoryItems);
+        // Eager page loads can return before the navigation renders
+        List<WebElement> categories = findElements(categoryItems);
 
         for (WebElement category : categories) {
             if (category.getText().equalsIgnoreCase(categoryName)) {
+                double timeOrigin = beginNavigation();
                 category.click();
+                invalidateElementCache();
+                recordNavigation("selectCategory", timeOrigin);
                 break;
             }
         }
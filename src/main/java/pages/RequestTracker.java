@@ -0,0 +1,103 @@
+package pages;
+
+import java.time.Duration;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * In-page count of fetch/XHR requests, for network-idle waits on sessions
+ * without DevTools (HtmlUnit, grid nodes without CDP). fetch and
+ * XMLHttpRequest.send are wrapped once per document (window.__requestTracker);
+ * only requests sent after that are seen, so install before the action that
+ * sends them.
+ */
+class RequestTracker {
+
+    private static final String INSTALL =
+            "var t = window.__requestTracker;" +
+            "if (!t) {" +
+            "  t = window.__requestTracker = { inFlight: 0, last: Date.now() };" +
+            "  var begin = function () { t.inFlight++; t.last = Date.now(); };" +
+            "  var end = function () { t.inFlight = Math.max(0, t.inFlight - 1); t.last = Date.now(); };" +
+            "  if (window.fetch) {" +
+            "    var fetch = window.fetch;" +
+            "    window.fetch = function () {" +
+            "      begin();" +
+            "      var p;" +
+            "      try { p = fetch.apply(this, arguments); } catch (e) { end(); throw e; }" +
+            "      p.then(end, end);" +
+            "      return p;" +
+            "    };" +
+            "  }" +
+            "  var send = XMLHttpRequest.prototype.send;" +
+            "  XMLHttpRequest.prototype.send = function () {" +
+            "    begin();" +
+            "    this.addEventListener('loadend', end);" +
+            "    return send.apply(this, arguments);" +
+            "  };" +
+            "}";
+
+    // arguments: quietMillis, timeoutMillis, callback -> true once loaded with no request for quietMillis
+    private static final String AWAIT_IDLE_SCRIPT =
+            "var quiet = arguments[0], timeout = arguments[1], done = arguments[arguments.length - 1];" +
+            INSTALL +
+            "var started = Date.now();" +
+            "(function check() {" +
+            "  var now = Date.now();" +
+            "  if (document.readyState === 'complete' && t.inFlight === 0 && now - t.last >= quiet) { done(true); return; }" +
+            "  if (now - started >= timeout) { done(false); return; }" +
+            "  setTimeout(check, 50);" +
+            "})();";
+
+    // Async script timeout the driver is known to allow (WebDriver default is 30s)
+    private static final long DEFAULT_SCRIPT_TIMEOUT_MILLIS = 30000;
+
+    private RequestTracker() {
+    }
+
+    // Start counting requests in the current document; harmless when already counting
+    static void install(WebDriver driver) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return;
+        }
+        try {
+            ((JavascriptExecutor) driver).executeScript(INSTALL);
+        } catch (WebDriverException e) {
+            // The wait falls back to document.readyState
+        }
+    }
+
+    /**
+     * Wait until the document has loaded and no counted request has been in
+     * flight for quiet.
+     *
+     * @return true when idle, false on timeout, or null when the script could not run
+     */
+    static Boolean awaitIdle(WebDriver driver, Duration quiet, Duration timeout) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        long timeoutMillis = timeout.toMillis();
+        Duration previousScriptTimeout = null;
+        try {
+            if (timeoutMillis >= DEFAULT_SCRIPT_TIMEOUT_MILLIS) {
+                previousScriptTimeout = driver.manage().timeouts().getScriptTimeout();
+                driver.manage().timeouts().scriptTimeout(Duration.ofMillis(timeoutMillis + 5000));
+            }
+            Object result = ((JavascriptExecutor) driver).executeAsyncScript(AWAIT_IDLE_SCRIPT,
+                    quiet.toMillis(), timeoutMillis);
+            return Boolean.TRUE.equals(result);
+        } catch (ScriptTimeoutException e) {
+            return false;
+        } catch (WebDriverException e) {
+            return null;
+        } finally {
+            if (previousScriptTimeout != null) {
+                DomWaits.restoreScriptTimeout(driver, previousScriptTimeout);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package pages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+
+/**
+ * Describes a bulk read over repeated elements: a container locator that
+ * matches one element per row, and the named child values to pull from each.
+ *
+ * Only CSS selectors are supported, since the query runs as a single
+ * document.querySelectorAll script in the browser.
+ */
+public class RowQuery {
+
+    private final String containerSelector;
+    private final List<List<String>> fields = new ArrayList<>();
+
+    private RowQuery(By container) {
+        this.containerSelector = cssOf(container);
+    }
+
+    public static RowQuery rows(By container) {
+        return new RowQuery(container);
+    }
+
+    // Visible text of the first matching child
+    public RowQuery text(String name, By child) {
+        fields.add(Arrays.asList(name, cssOf(child), ""));
+        return this;
+    }
+
+    // Attribute value of the first matching child
+    public RowQuery attribute(String name, By child, String attribute) {
+        fields.add(Arrays.asList(name, cssOf(child), attribute));
+        return this;
+    }
+
+    // Attribute value of the row element itself
+    public RowQuery ownAttribute(String name, String attribute) {
+        fields.add(Arrays.asList(name, "", attribute));
+        return this;
+    }
+
+    String getContainerSelector() {
+        return containerSelector;
+    }
+
+    List<List<String>> getFields() {
+        return fields;
+    }
+
+    static String cssOf(By locator) {
+        if (locator instanceof By.Remotable) {
+            By.Remotable.Parameters params = ((By.Remotable) locator).getRemoteParameters();
+            if ("css selector".equals(params.using())) {
+                return String.valueOf(params.value());
+            }
+            if ("id".equals(params.using())) {
+                return "#" + params.value();
+            }
+            if ("class name".equals(params.using())) {
+                return "." + params.value();
+            }
+            if ("tag name".equals(params.using())) {
+                return String.valueOf(params.value());
+            }
+        }
+        throw new IllegalArgumentException("Bulk queries need a CSS-compatible locator, got " + locator);
+    }
+}
@@ -0,0 +1,117 @@
+package utils;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+/**
+ * Named Chrome launch profiles, selected with -Dbrowser.profile=<name>.
+ *
+ *   default        headful, maximized, normal page load (the original behaviour)
+ *   fast-headless  headless, eager page load, no images or web fonts
+ *   debug-headful  headful, maximized, normal page load, DevTools open on every tab,
+ *                  and a user-data-dir kept between runs (browser.userDataDir,
+ *                  default target/chrome-debug-profile, one per pooled browser)
+ *                  so logins, extensions and DevTools settings persist
+ *   ci             headless, eager page load, images kept for screenshots,
+ *                  sandbox/shm flags for containers
+ */
+public enum BrowserProfile {
+
+    DEFAULT("default", false, PageLoadStrategy.NORMAL, true, true, null, false, false),
+    FAST_HEADLESS("fast-headless", true, PageLoadStrategy.EAGER, false, false, "1920,1080", true, true),
+    DEBUG_HEADFUL("debug-headful", false, PageLoadStrategy.NORMAL, true, true, null, false, false),
+    CI("ci", true, PageLoadStrategy.EAGER, true, true, "1920,1080", true, true);
+
+    // Pooled browsers can't share a user-data-dir, so each debug session gets its own numbered one
+    private static final AtomicInteger DEBUG_SESSIONS = new AtomicInteger();
+
+    private final String profileName;
+    private final boolean headless;
+    private final PageLoadStrategy pageLoadStrategy;
+    private final boolean loadImages;
+    private final boolean loadFonts;
+    private final String windowSize;
+    private final boolean disableGpu;
+    private final boolean disableExtensions;
+
+    BrowserProfile(String profileName, boolean headless, PageLoadStrategy pageLoadStrategy,
+                   boolean loadImages, boolean loadFonts, String windowSize,
+                   boolean disableGpu, boolean disableExtensions) {
+        this.profileName = profileName;
+        this.headless = headless;
+        this.pageLoadStrategy = pageLoadStrategy;
+        this.loadImages = loadImages;
+        this.loadFonts = loadFonts;
+        this.windowSize = windowSize;
+        this.disableGpu = disableGpu;
+        this.disableExtensions = disableExtensions;
+    }
+
+    // Profile chosen by -Dbrowser.profile, DEFAULT when unset
+    public static BrowserProfile fromSystemProperty() {
+        return byName(System.getProperty("browser.profile", DEFAULT.profileName));
+    }
+
+    public static BrowserProfile byName(String name) {
+        for (BrowserProfile profile : values()) {
+            if (profile.profileName.equalsIgnoreCase(name.trim())) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown browser profile '" + name + "', expected one of: "
+                + "default, fast-headless, debug-headful, ci");
+    }
+
+    public ChromeOptions toChromeOptions() {
+        ChromeOptions options = new ChromeOptions();
+        options.setPageLoadStrategy(pageLoadStrategy);
+        if (headless) {
+            options.addArguments("--headless=new");
+        }
+        if (windowSize != null) {
+            options.addArguments("--window-size=" + windowSize);
+        }
+        if (disableGpu) {
+            options.addArguments("--disable-gpu");
+        }
+        if (disableExtensions) {
+            options.addArguments("--disable-extensions");
+        }
+        if (this == CI) {
+            options.addArguments("--no-sandbox", "--disable-dev-shm-usage");
+        }
+        if (this == DEBUG_HEADFUL) {
+            String userDataDir = System.getProperty("browser.userDataDir", "target/chrome-debug-profile");
+            options.addArguments("--auto-open-devtools-for-tabs", "--user-data-dir="
+                    + Paths.get(userDataDir + "-" + DEBUG_SESSIONS.incrementAndGet()).toAbsolutePath());
+        }
+        if (!loadImages) {
+            Map<String, Object> prefs = new HashMap<>();
+            prefs.put("profile.managed_default_content_settings.images", 2);
+            options.setExperimentalOption("prefs", prefs);
+        }
+        return options;
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    public boolean loadsFonts() {
+        return loadFonts;
+    }
+
+    // Headful profiles without a fixed size open maximized
+    public boolean shouldMaximize() {
+        return windowSize == null && !headless;
+    }
+}
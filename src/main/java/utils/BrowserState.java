@@ -0,0 +1,216 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+/**
+ * Snapshot of a browser session's state: cookies for every domain, the
+ * localStorage and sessionStorage of the page's origin, and the page URL.
+ *
+ * A setup flow (e.g. building a cart) runs once, its state is captured and
+ * saved as JSON, and later sessions restore it in one step instead of
+ * replaying the flow. On Chrome, cookies are set through DevTools before any
+ * page loads and storage is seeded by a script that runs before the page's own
+ * scripts, so restoring costs a single navigation to the saved URL.
+ */
+public class BrowserState {
+
+    // Fields accepted by Network.setCookies; getAllCookies returns a few more
+    private static final Set<String> COOKIE_FIELDS = Set.of(
+            "name", "value", "domain", "path", "secure", "httpOnly", "sameSite", "expires", "priority");
+
+    private static final String READ_STORAGE_SCRIPT =
+            "function dump(storage) {"
+            + "  var out = {};"
+            + "  for (var i = 0; i < storage.length; i++) { var k = storage.key(i); out[k] = storage.getItem(k); }"
+            + "  return out;"
+            + "}"
+            + "try { return {origin: location.origin, local: dump(localStorage), session: dump(sessionStorage)}; }"
+            + "catch (e) { return {origin: location.origin, local: {}, session: {}}; }";
+
+    private static final String WRITE_STORAGE_SCRIPT =
+            "(function (all) {"
+            + "  var state = all[location.origin];"
+            + "  if (!state) { return; }"
+            + "  try {"
+            + "    Object.keys(state.local).forEach(function (k) { localStorage.setItem(k, state.local[k]); });"
+            + "    Object.keys(state.session).forEach(function (k) { sessionStorage.setItem(k, state.session[k]); });"
+            + "  } catch (e) {}"
+            + "})(%s);";
+
+    private final String url;
+    private final long capturedAt;
+    private final List<Map<String, Object>> cookies;
+    // origin -> {"local": {...}, "session": {...}}
+    private final Map<String, Object> storage;
+
+    private BrowserState(String url, long capturedAt, List<Map<String, Object>> cookies, Map<String, Object> storage) {
+        this.url = url;
+        this.capturedAt = capturedAt;
+        this.cookies = cookies;
+        this.storage = storage;
+    }
+
+    // Capture the current session: cookies of every domain and storage of the current origin
+    @SuppressWarnings("unchecked")
+    public static BrowserState capture(WebDriver driver) {
+        List<Map<String, Object>> cookies = new ArrayList<>();
+        if (driver instanceof HasDevTools) {
+            Map<String, Object> result = devTools(driver).send(new Command<Map<String, Object>>(
+                    "Network.getAllCookies", Collections.emptyMap(), input -> input.read(Json.MAP_TYPE)));
+            for (Map<String, Object> cookie : (List<Map<String, Object>>) result.get("cookies")) {
+                Map<String, Object> kept = new LinkedHashMap<>();
+                for (Map.Entry<String, Object> field : cookie.entrySet()) {
+                    if (COOKIE_FIELDS.contains(field.getKey())) {
+                        kept.put(field.getKey(), field.getValue());
+                    }
+                }
+                // Session cookies report expires = -1 and must be set without it
+                if (Boolean.TRUE.equals(cookie.get("session"))) {
+                    kept.remove("expires");
+                }
+                cookies.add(kept);
+            }
+        } else {
+            for (Cookie cookie : driver.manage().getCookies()) {
+                Map<String, Object> kept = new LinkedHashMap<>(cookie.toJson());
+                if (cookie.getExpiry() != null) {
+                    kept.put("expires", cookie.getExpiry().getTime() / 1000.0);
+                }
+                kept.remove("expiry");
+                cookies.add(kept);
+            }
+        }
+
+        Map<String, Object> pageStorage = (Map<String, Object>) ((JavascriptExecutor) driver)
+                .executeScript(READ_STORAGE_SCRIPT);
+        Map<String, Object> storage = new LinkedHashMap<>();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("local", pageStorage.get("local"));
+        entry.put("session", pageStorage.get("session"));
+        storage.put(String.valueOf(pageStorage.get("origin")), entry);
+
+        return new BrowserState(driver.getCurrentUrl(), System.currentTimeMillis(), cookies, storage);
+    }
+
+    /**
+     * Restore this state into a session and open the saved URL. The session
+     * should be clean (see DriverFactory.resetSession); existing cookies and
+     * storage are overwritten key by key, not cleared.
+     */
+    public void restore(WebDriver driver) {
+        if (driver instanceof HasDevTools) {
+            DevTools devTools = devTools(driver);
+            devTools.send(new Command<Void>("Network.setCookies", Collections.singletonMap("cookies", cookies)));
+            devTools.send(new Command<Void>("Page.enable", Collections.emptyMap()));
+            Map<String, Object> script = devTools.send(new Command<Map<String, Object>>(
+                    "Page.addScriptToEvaluateOnNewDocument",
+                    Collections.singletonMap("source", String.format(WRITE_STORAGE_SCRIPT, new Json().toJson(storage))),
+                    input -> input.read(Json.MAP_TYPE)));
+            try {
+                driver.get(url);
+            } finally {
+                // Seed storage for this navigation only, not for every later page
+                devTools.send(new Command<Void>("Page.removeScriptToEvaluateOnNewDocument",
+                        Collections.singletonMap("identifier", script.get("identifier"))));
+            }
+        } else {
+            // Without DevTools, cookies and storage can only be set for the page that is open
+            driver.get(url);
+            for (Map<String, Object> cookie : cookies) {
+                try {
+                    driver.manage().addCookie(toCookie(cookie));
+                } catch (RuntimeException e) {
+                    // Cookie for another domain
+                }
+            }
+            ((JavascriptExecutor) driver).executeScript(
+                    String.format(WRITE_STORAGE_SCRIPT, new Json().toJson(storage)));
+            driver.navigate().refresh();
+        }
+    }
+
+    private static Cookie toCookie(Map<String, Object> cookie) {
+        Cookie.Builder builder = new Cookie.Builder(String.valueOf(cookie.get("name")), String.valueOf(cookie.get("value")))
+                .path(String.valueOf(cookie.getOrDefault("path", "/")))
+                .isSecure(Boolean.TRUE.equals(cookie.get("secure")))
+                .isHttpOnly(Boolean.TRUE.equals(cookie.get("httpOnly")));
+        if (cookie.get("domain") != null) {
+            builder.domain(String.valueOf(cookie.get("domain")));
+        }
+        if (cookie.get("expires") instanceof Number) {
+            builder.expiresOn(new Date((long) (((Number) cookie.get("expires")).doubleValue() * 1000)));
+        }
+        return builder.build();
+    }
+
+    private static DevTools devTools(WebDriver driver) {
+        DevTools devTools = ((HasDevTools) driver).getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        return devTools;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getCookieCount() {
+        return cookies.size();
+    }
+
+    public boolean isOlderThan(Duration age) {
+        return System.currentTimeMillis() - capturedAt > age.toMillis();
+    }
+
+    public void save(Path file) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("url", url);
+        json.put("capturedAt", capturedAt);
+        json.put("cookies", cookies);
+        json.put("storage", storage);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        // Write then move, so a concurrent reader never sees a half-written snapshot
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        Files.write(temp, new Json().toJson(json).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static BrowserState load(Path file) throws IOException {
+        Map<String, Object> json = new Json().toType(
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.MAP_TYPE);
+        List<String> missing = new ArrayList<>();
+        for (String key : Arrays.asList("url", "capturedAt", "cookies", "storage")) {
+            if (!json.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IOException("Browser state " + file + " is missing " + missing);
+        }
+        return new BrowserState(String.valueOf(json.get("url")), ((Number) json.get("capturedAt")).longValue(),
+                (List<Map<String, Object>>) json.get("cookies"), (Map<String, Object>) json.get("storage"));
+    }
+}
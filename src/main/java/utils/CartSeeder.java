@@ -0,0 +1,199 @@
+package utils;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+/**
+ * Builds a cart through the storefront's HTTP cart endpoint instead of the UI,
+ * then hands the resulting session cookies to a WebDriver session.
+ *
+ * One seeder is one shopper session: it keeps its own cookie jar, while all
+ * seeders share a single HttpClient so connections (and TLS handshakes) are
+ * pooled and reused. Adding a product is one POST to the Cart-AddProduct
+ * controller, which answers with JSON including the new cart quantity.
+ *
+ * Configured with system properties:
+ *   cart.setup          - "ui" (default) or "api" to seed carts through HTTP
+ *   cart.api.base       - storefront origin (default: origin of Constants.BASE_URL)
+ *   cart.api.addPath    - path of the add-to-cart controller
+ *   cart.seedProducts   - comma-separated product IDs, optionally "pid:quantity"
+ *   cart.api.timeout    - seconds per request (default 10)
+ */
+public class CartSeeder {
+
+    public static final String DEFAULT_ADD_PATH = "/on/demandware.store/Sites-Bose_US-Site/en_US/Cart-AddProduct";
+    private static final Duration TIMEOUT = Duration.ofSeconds(Long.getLong("cart.api.timeout", 10));
+
+    // Shared by every seeder: one connection pool for the whole run
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private final URI base;
+    private final String addPath;
+    private final CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+    private int quantityTotal;
+
+    public CartSeeder(String baseUrl) {
+        this(baseUrl, DEFAULT_ADD_PATH);
+    }
+
+    public CartSeeder(String baseUrl, String addPath) {
+        this.base = URI.create(baseUrl);
+        this.addPath = addPath;
+    }
+
+    // Seeder for the configured storefront, or null when -Dcart.setup=api is not set
+    public static CartSeeder fromSystemProperties() {
+        if (!"api".equalsIgnoreCase(System.getProperty("cart.setup", "ui"))) {
+            return null;
+        }
+        URI home = URI.create(Constants.BASE_URL);
+        String origin = home.getScheme() + "://" + home.getAuthority();
+        return new CartSeeder(System.getProperty("cart.api.base", origin),
+                System.getProperty("cart.api.addPath", DEFAULT_ADD_PATH));
+    }
+
+    // Products from -Dcart.seedProducts as pid -> quantity, in order
+    public static Map<String, Integer> configuredProducts() {
+        String spec = System.getProperty("cart.seedProducts", "").trim();
+        if (spec.isEmpty()) {
+            throw new IllegalStateException("-Dcart.setup=api needs product IDs in -Dcart.seedProducts=pid[:qty],...");
+        }
+        Map<String, Integer> products = new LinkedHashMap<>();
+        for (String item : spec.split(",")) {
+            String[] parts = item.trim().split(":");
+            products.merge(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : 1, Integer::sum);
+        }
+        return products;
+    }
+
+    // Add every product in order; the storefront locks the basket per request, so requests are sequential
+    public CartSeeder addProducts(Map<String, Integer> products) throws IOException {
+        for (Map.Entry<String, Integer> product : products.entrySet()) {
+            addProduct(product.getKey(), product.getValue());
+        }
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public CartSeeder addProduct(String productId, int quantity) throws IOException {
+        URI uri = base.resolve(addPath);
+        String form = "pid=" + URLEncoder.encode(productId, StandardCharsets.UTF_8)
+                + "&quantity=" + quantity + "&options=%5B%5D";
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8")
+                .header("Accept", "application/json")
+                .header("X-Requested-With", "XMLHttpRequest")
+                .POST(HttpRequest.BodyPublishers.ofString(form));
+        for (Map.Entry<String, List<String>> header : cookies.get(uri, Collections.emptyMap()).entrySet()) {
+            for (String value : header.getValue()) {
+                request.header(header.getKey(), value);
+            }
+        }
+
+        HttpResponse<String> response;
+        try {
+            response = CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while adding " + productId + " to the cart", e);
+        }
+        cookies.put(uri, response.headers().map());
+
+        if (response.statusCode() != 200) {
+            throw new IOException("Cart-AddProduct returned HTTP " + response.statusCode() + " for " + productId);
+        }
+        Map<String, Object> body;
+        try {
+            body = new Json().toType(response.body(), Json.MAP_TYPE);
+        } catch (RuntimeException e) {
+            throw new IOException("Cart-AddProduct did not return JSON for " + productId, e);
+        }
+        if (Boolean.TRUE.equals(body.get("error"))) {
+            throw new IOException("Could not add " + productId + " to the cart: " + body.get("message"));
+        }
+        Object total = body.get("quantityTotal");
+        if (total instanceof Number) {
+            quantityTotal = ((Number) total).intValue();
+        }
+        return this;
+    }
+
+    // Cart quantity reported by the storefront after the last add
+    public int getQuantityTotal() {
+        return quantityTotal;
+    }
+
+    // Session cookies of the seeded cart, scoped to the storefront host when the server didn't say
+    public List<HttpCookie> getSessionCookies() {
+        List<HttpCookie> session = new ArrayList<>(cookies.getCookieStore().get(base));
+        for (HttpCookie cookie : session) {
+            if (cookie.getDomain() == null) {
+                cookie.setDomain(base.getHost());
+            }
+            if (cookie.getPath() == null) {
+                cookie.setPath("/");
+            }
+        }
+        return session;
+    }
+
+    /**
+     * Move the seeded cart into a browser session. With DevTools the cookies
+     * are set before any page loads; otherwise the storefront is opened first
+     * so WebDriver accepts cookies for its domain. Navigate afterwards.
+     */
+    public void injectInto(WebDriver driver) {
+        List<HttpCookie> session = getSessionCookies();
+        if (driver instanceof HasDevTools) {
+            List<Map<String, Object>> params = new ArrayList<>();
+            for (HttpCookie cookie : session) {
+                Map<String, Object> param = new LinkedHashMap<>();
+                param.put("name", cookie.getName());
+                param.put("value", cookie.getValue());
+                param.put("domain", cookie.getDomain());
+                param.put("path", cookie.getPath());
+                param.put("secure", cookie.getSecure());
+                param.put("httpOnly", cookie.isHttpOnly());
+                params.add(param);
+            }
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(new Command<Void>("Network.setCookies", Collections.singletonMap("cookies", params)));
+        } else {
+            driver.get(base.toString());
+            for (HttpCookie cookie : session) {
+                driver.manage().addCookie(new Cookie.Builder(cookie.getName(), cookie.getValue())
+                        .domain(cookie.getDomain())
+                        .path(cookie.getPath())
+                        .isSecure(cookie.getSecure())
+                        .isHttpOnly(cookie.isHttpOnly())
+                        .build());
+            }
+        }
+    }
+}
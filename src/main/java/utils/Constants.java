@@ -7,6 +7,9 @@ public class Constants {
     // Timeouts
     public static final int DEFAULT_WAIT = 10;
     public static final int LONG_WAIT = 30;
+
+    // Output directory for reports; each shard of a sharded run gets its own
+    public static final String REPORT_DIR = System.getProperty("report.dir", "test-reports");
     
     // Categories
     public static final String CATEGORY_HEADPHONES = "Headphones";
@@ -0,0 +1,178 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Lazily produced data-provider rows.
+ *
+ * Every method returns an {@code Iterator<Object[]>} that builds one row per
+ * {@code next()}, so a provider can describe thousands of combinations without
+ * holding them in memory, and TestNG can start invoking the test as soon as
+ * the first row exists. Iterators are single-use and not thread-safe; TestNG
+ * always pulls rows from one thread and hands them out to its workers.
+ *
+ * The {@code data.limit} system property caps every provider that goes through
+ * {@link #limited(Iterator)} (default 0 = no limit), which keeps local runs
+ * short without editing the generators.
+ */
+public final class DataRows {
+
+    public static final long LIMIT = Long.getLong("data.limit", 0);
+
+    private DataRows() {
+    }
+
+    // Cartesian product of the axes, last axis varying fastest
+    public static Iterator<Object[]> combinations(List<?>... axes) {
+        for (List<?> axis : axes) {
+            if (axis.isEmpty()) {
+                return new ArrayList<Object[]>().iterator();
+            }
+        }
+        return new Iterator<Object[]>() {
+            private final int[] position = new int[axes.length];
+            private boolean exhausted = axes.length == 0;
+
+            @Override
+            public boolean hasNext() {
+                return !exhausted;
+            }
+
+            @Override
+            public Object[] next() {
+                if (exhausted) {
+                    throw new NoSuchElementException();
+                }
+                Object[] row = new Object[axes.length];
+                for (int i = 0; i < axes.length; i++) {
+                    row[i] = axes[i].get(position[i]);
+                }
+                advance();
+                return row;
+            }
+
+            private void advance() {
+                for (int i = axes.length - 1; i >= 0; i--) {
+                    if (++position[i] < axes[i].size()) {
+                        return;
+                    }
+                    position[i] = 0;
+                }
+                exhausted = true;
+            }
+        };
+    }
+
+    // Reshape each row as it is pulled, e.g. to derive an expected result column
+    public static Iterator<Object[]> map(Iterator<Object[]> rows, Function<Object[], Object[]> mapper) {
+        return new Iterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                return mapper.apply(rows.next());
+            }
+        };
+    }
+
+    // Stop after max rows (0 or less = unlimited)
+    public static Iterator<Object[]> limit(Iterator<Object[]> rows, long max) {
+        if (max <= 0) {
+            return rows;
+        }
+        return new Iterator<Object[]>() {
+            private long remaining = max;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0 && rows.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                if (remaining <= 0) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return rows.next();
+            }
+        };
+    }
+
+    // Apply the data.limit system property
+    public static Iterator<Object[]> limited(Iterator<Object[]> rows) {
+        return limit(rows, LIMIT);
+    }
+
+    /**
+     * Stream a comma-separated file one line at a time. The first non-comment
+     * line is a header and is skipped; blank lines and lines starting with '#'
+     * are ignored. Fields are trimmed and not unquoted, so values must not
+     * contain commas. The file is closed once the last row has been read.
+     */
+    public static Iterator<Object[]> csv(Path file) {
+        BufferedReader reader;
+        try {
+            reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open test data file " + file, e);
+        }
+
+        return new Iterator<Object[]>() {
+            private boolean headerSkipped;
+            private String nextLine = read();
+
+            private String read() {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String trimmed = line.trim();
+                        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                            continue;
+                        }
+                        if (!headerSkipped) {
+                            headerSkipped = true;
+                            continue;
+                        }
+                        return line;
+                    }
+                    reader.close();
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read test data file " + file, e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextLine != null;
+            }
+
+            @Override
+            public Object[] next() {
+                if (nextLine == null) {
+                    throw new NoSuchElementException();
+                }
+                List<String> fields = new ArrayList<>();
+                for (String field : nextLine.split(",", -1)) {
+                    fields.add(field.trim());
+                }
+                nextLine = read();
+                return fields.toArray();
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package utils;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+public class DriverFactory {
+
+    private static final DriverResolver RESOLVER = new DriverResolver();
+    private static volatile boolean driverResolved;
+    // Selenium Grid endpoint; when set, sessions are RemoteWebDrivers instead of local Chrome
+    private static final String GRID_URL = System.getProperty("grid.url", "");
+
+    // Web font requests dropped by profiles that don't load fonts
+    private static final List<String> FONT_URL_PATTERNS = Arrays.asList("*.woff", "*.woff2", "*.ttf", "*.otf");
+
+    // Create a new browser session using the launch profile from -Dbrowser.profile
+    public static WebDriver createDriver() {
+        return createDriver(BrowserProfile.fromSystemProperty());
+    }
+
+    public static WebDriver createDriver(BrowserProfile profile) {
+        WebDriver driver;
+        if (GRID_URL.isEmpty()) {
+            resolveDriverBinary();
+            ChromeDriver chrome = new ChromeDriver(profile.toChromeOptions());
+            RESOLVER.recordBrowserVersion(chrome.getCapabilities().getBrowserVersion());
+            driver = chrome;
+        } else {
+            driver = createRemoteDriver(profile.toChromeOptions());
+        }
+        if (profile.shouldMaximize()) {
+            driver.manage().window().maximize();
+        }
+        if (!profile.loadsFonts()) {
+            blockUrls(driver, FONT_URL_PATTERNS);
+        }
+        SnapshotProxy.attachConfigured(driver);
+        // Every command on the session becomes a span on the trace timeline
+        return TraceRecorder.traced(driver);
+    }
+
+    // Remote session on the grid, augmented so DevTools works through the grid's CDP endpoint
+    private static WebDriver createRemoteDriver(ChromeOptions options) {
+        URL gridUrl;
+        try {
+            gridUrl = new URL(GRID_URL);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid grid.url: " + GRID_URL, e);
+        }
+        WebDriver driver = new Augmenter().augment(new RemoteWebDriver(gridUrl, options));
+        System.out.println("✓ Remote session on " + GRID_URL + " (Chrome "
+                + ((HasCapabilities) driver).getCapabilities().getBrowserVersion() + ")");
+        return driver;
+    }
+
+    private static void blockUrls(WebDriver driver, List<String> patterns) {
+        if (!(driver instanceof HasDevTools)) {
+            System.out.println("Warning: could not block " + patterns + " - no DevTools connection");
+            return;
+        }
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(new Command<Void>("Network.enable", Collections.emptyMap()));
+            devTools.send(new Command<Void>("Network.setBlockedURLs",
+                    Collections.singletonMap("urls", patterns)));
+        } catch (Exception e) {
+            System.out.println("Warning: could not block " + patterns + " - " + e.getMessage());
+        }
+    }
+
+    // Close extra tabs, clear cookies and storage, and park the session on a blank page
+    public static void resetSession(WebDriver driver) {
+        List<String> handles = new ArrayList<>(driver.getWindowHandles());
+        for (int i = 1; i < handles.size(); i++) {
+            driver.switchTo().window(handles.get(i)).close();
+        }
+        driver.switchTo().window(handles.get(0));
+
+        if (driver.getCurrentUrl().startsWith("http")) {
+            ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+        }
+        if (driver instanceof HasDevTools) {
+            // Cookies for every domain, not just the current one
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(new Command<Void>("Network.clearBrowserCookies", Collections.emptyMap()));
+        } else {
+            driver.manage().deleteAllCookies();
+        }
+        driver.get("about:blank");
+    }
+
+    // Resolve the chromedriver binary once per JVM, from the local manifest when possible
+    private static synchronized void resolveDriverBinary() {
+        if (!driverResolved) {
+            RESOLVER.resolveChromeDriver();
+            driverResolved = true;
+        }
+    }
+}
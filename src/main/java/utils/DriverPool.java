@@ -0,0 +1,285 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Bounded pool of browser sessions with thread-confined leases.
+ *
+ * A thread leases a driver, uses it exclusively, then returns it. At most
+ * {@code capacity} sessions exist at once; extra callers block until a session
+ * is returned. Returned sessions are reused LIFO, so a thread that releases and
+ * immediately leases again gets the same browser back (and its state with it).
+ *
+ * Sessions can be pre-warmed: the shared pool starts launching browsers in the
+ * background as soon as it is first requested (when BaseTest loads), so by the time a test leases one the
+ * ChromeDriver cold start is already paid. With reset enabled, a released
+ * session has its extra tabs, cookies and storage cleared and is parked on
+ * about:blank before the next lease. Sessions still open when the JVM exits
+ * are quit by a shutdown hook.
+ *
+ * Configured with system properties:
+ *   driver.pool.size          - maximum number of sessions (default test.threads + test.dataThreads:
+ *                               a browser per class thread, plus one per parallel data-provider row)
+ *   driver.pool.leaseTimeout  - seconds to wait for a free session (default 300)
+ *   driver.pool.prewarm       - sessions launched at startup (default test.threads)
+ *   driver.pool.reset         - clear browser state between leases (default true;
+ *                               tests that need a cart restore a saved BrowserState)
+ */
+public class DriverPool {
+
+    private static final int CLASS_THREADS = Integer.getInteger("test.threads", 2);
+    // Classes hold their browser until @AfterClass, so parallel rows need browsers of their own
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("driver.pool.size",
+            CLASS_THREADS + Integer.getInteger("test.dataThreads", 2));
+    private static final long LEASE_TIMEOUT_SECONDS = Long.getLong("driver.pool.leaseTimeout", 300);
+
+    private final int capacity;
+    private final Supplier<WebDriver> factory;
+    private final Semaphore permits;
+    private final Deque<WebDriver> idle = new ConcurrentLinkedDeque<>();
+    private final Set<WebDriver> sessions = ConcurrentHashMap.newKeySet();
+    private final Map<WebDriver, Thread> owners = new ConcurrentHashMap<>();
+    // Sessions being launched in the background and not yet handed out
+    private final Queue<Future<WebDriver>> warming = new ConcurrentLinkedQueue<>();
+    private volatile Consumer<WebDriver> resetter;
+    private final ThreadLocal<WebDriver> leased = new ThreadLocal<>();
+    private volatile boolean closed;
+
+    public DriverPool(int capacity, Supplier<WebDriver> factory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Pool capacity must be at least 1, was " + capacity);
+        }
+        this.capacity = capacity;
+        this.factory = factory;
+        this.permits = new Semaphore(capacity, true);
+    }
+
+    private static DriverPool createSharedPool() {
+        DriverPool pool = new DriverPool(DEFAULT_CAPACITY, DriverFactory::createDriver);
+        if (Boolean.parseBoolean(System.getProperty("driver.pool.reset", "true"))) {
+            pool.resetBetweenLeases(DriverFactory::resetSession);
+        }
+        pool.prewarm(Integer.getInteger("driver.pool.prewarm", Math.min(CLASS_THREADS, DEFAULT_CAPACITY)));
+        // Classes that lease without extending BaseTest never reach its @AfterSuite
+        Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown, "driver-pool-shutdown"));
+        return pool;
+    }
+
+    // Shared pool, created (and pre-warmed) on first use
+    public static DriverPool getInstance() {
+        return Shared.INSTANCE;
+    }
+
+    private static class Shared {
+        static final DriverPool INSTANCE = createSharedPool();
+    }
+
+    // Clear session state with the given action whenever a session is returned
+    public DriverPool resetBetweenLeases(Consumer<WebDriver> resetter) {
+        this.resetter = resetter;
+        return this;
+    }
+
+    // Start launching up to count sessions on background threads
+    public void prewarm(int count) {
+        int toStart = Math.min(count, capacity - sessions.size() - warming.size());
+        if (toStart <= 0) {
+            return;
+        }
+        ExecutorService launcher = Executors.newFixedThreadPool(toStart, task -> {
+            Thread thread = new Thread(task, "driver-prewarm");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < toStart; i++) {
+            warming.add(launcher.submit(() -> {
+                WebDriver driver = factory.get();
+                sessions.add(driver);
+                return driver;
+            }));
+        }
+        launcher.shutdown();
+        System.out.println("✓ Pre-warming " + toStart + " browser session(s) in the background");
+    }
+
+    // Driver leased by the calling thread from the shared pool
+    public static WebDriver current() {
+        WebDriver driver = getInstance().leasedByCurrentThread();
+        if (driver == null) {
+            throw new IllegalStateException("No WebDriver leased by thread " + Thread.currentThread().getName());
+        }
+        return driver;
+    }
+
+    // Session leased by the calling thread, or null
+    public WebDriver leasedByCurrentThread() {
+        WebDriver driver = leased.get();
+        if (driver != null && owners.get(driver) != Thread.currentThread()) {
+            leased.remove();
+            return null;
+        }
+        return driver;
+    }
+
+    // Lease a session for the calling thread; repeated calls return the same session
+    public WebDriver lease() {
+        WebDriver existing = leasedByCurrentThread();
+        if (existing != null) {
+            return existing;
+        }
+        if (closed) {
+            throw new IllegalStateException("Driver pool is shut down");
+        }
+        try {
+            if (!permits.tryAcquire(LEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out after " + LEASE_TIMEOUT_SECONDS
+                        + "s waiting for one of " + capacity + " pooled drivers");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a pooled driver", e);
+        }
+
+        WebDriver driver = idle.pollFirst();
+        if (driver == null) {
+            driver = takeWarmSession();
+        }
+        if (driver == null) {
+            try {
+                driver = factory.get();
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            sessions.add(driver);
+            System.out.println("✓ Browser session " + sessions.size() + "/" + capacity + " started");
+        }
+        owners.put(driver, Thread.currentThread());
+        leased.set(driver);
+        return driver;
+    }
+
+    // Wait for a session already being launched rather than starting another
+    private WebDriver takeWarmSession() {
+        Future<WebDriver> launch;
+        while ((launch = warming.poll()) != null) {
+            try {
+                return launch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a pre-warmed driver", e);
+            } catch (ExecutionException e) {
+                System.err.println("Pre-warmed browser failed to start: " + e.getCause().getMessage());
+            }
+        }
+        return null;
+    }
+
+    // Return a leased session to the pool
+    public void release(WebDriver driver) {
+        if (driver == null || owners.remove(driver) == null) {
+            return;
+        }
+        if (leased.get() == driver) {
+            leased.remove();
+        }
+        if (closed) {
+            quitQuietly(driver);
+        } else if (!reset(driver)) {
+            sessions.remove(driver);
+            quitQuietly(driver);
+        } else {
+            idle.offerFirst(driver);
+        }
+        permits.release();
+    }
+
+    private boolean reset(WebDriver driver) {
+        Consumer<WebDriver> action = resetter;
+        if (action == null) {
+            return true;
+        }
+        try {
+            action.accept(driver);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Dropping browser session that failed to reset: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Return the session leased by the calling thread, if any
+    public void release() {
+        release(leased.get());
+    }
+
+    // Drop a broken session instead of returning it to the pool
+    public void discard(WebDriver driver) {
+        if (driver == null || !sessions.remove(driver)) {
+            return;
+        }
+        if (leased.get() == driver) {
+            leased.remove();
+        }
+        boolean wasLeased = owners.remove(driver) != null;
+        idle.remove(driver);
+        quitQuietly(driver);
+        if (wasLeased) {
+            permits.release();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Quit every session the pool has created
+    public void shutdown() {
+        closed = true;
+        Future<WebDriver> launch;
+        while ((launch = warming.poll()) != null) {
+            try {
+                launch.get(60, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                // Nothing to close if it never started
+            }
+        }
+        List<WebDriver> all = new ArrayList<>(sessions);
+        sessions.clear();
+        owners.clear();
+        idle.clear();
+        leased.remove();
+        for (WebDriver driver : all) {
+            quitQuietly(driver);
+        }
+        if (!all.isEmpty()) {
+            System.out.println("✓ Closed " + all.size() + " pooled browser session(s)");
+        }
+    }
+
+    private static void quitQuietly(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            System.err.println("Failed to quit browser session: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import io.github.bonigarcia.wdm.config.Config;
+import io.github.bonigarcia.wdm.versions.VersionDetector;
+
+/**
+ * Resolves the chromedriver binary from a local manifest so that, after the
+ * first online run, startup makes no network calls.
+ *
+ * The first resolution runs WebDriverManager, copies the binary into the
+ * manifest directory and records its version, SHA-256, size and modification
+ * time. Later runs trust the pinned copy while its size and modification time
+ * are unchanged, re-check the full checksum when either differs, and point
+ * webdriver.chrome.driver at it.
+ *
+ * Before a pinned driver is used, the installed Chrome's major version is
+ * compared with the driver's. The version is detected from the shell once and
+ * kept in the manifest with the Chrome binary's modification time, so it is
+ * only detected again after Chrome itself changed. After a Chrome auto-update
+ * the driver is re-resolved online, or with driver.offline the run fails with
+ * a message saying so, rather than every session failing to start. The
+ * browser version seen by the first session is recorded as well.
+ *
+ * Configured with system properties:
+ *   driver.manifest  - manifest file (default ~/.cache/selenium-automation/chromedriver.properties)
+ *   driver.offline   - never go to the network; fail if nothing is cached (default false)
+ *   webdriver.chrome.driver - an explicit binary always wins over the manifest
+ */
+public class DriverResolver {
+
+    private static final String DRIVER_PROPERTY = "webdriver.chrome.driver";
+
+    private final Path manifestFile;
+    private final boolean offline;
+    // Installed Chrome binary and its version; either may be null when it can't be detected
+    private final Supplier<Path> browserBinary;
+    private final Function<Path, String> browserVersion;
+
+    public DriverResolver() {
+        this(Paths.get(System.getProperty("driver.manifest",
+                        Paths.get(System.getProperty("user.home"), ".cache", "selenium-automation",
+                                "chromedriver.properties").toString())),
+                Boolean.getBoolean("driver.offline"), DriverResolver::installedChrome,
+                unused -> installedChromeVersion());
+    }
+
+    // With a fixed browser version that is asked for on every resolution
+    public DriverResolver(Path manifestFile, boolean offline, Supplier<String> browserVersion) {
+        this(manifestFile, offline, () -> null, unused -> browserVersion.get());
+    }
+
+    public DriverResolver(Path manifestFile, boolean offline, Supplier<Path> browserBinary,
+                          Function<Path, String> browserVersion) {
+        this.manifestFile = manifestFile;
+        this.offline = offline;
+        this.browserBinary = browserBinary;
+        this.browserVersion = browserVersion;
+    }
+
+    // The commands database is read locally, so detection stays offline
+    private static VersionDetector chromeDetector() {
+        return new VersionDetector(new Config().setCommandsPropertiesOnlineFirst(false), null);
+    }
+
+    // Real path of the Chrome binary, so a symlink still changes when Chrome updates
+    private static Path installedChrome() {
+        try {
+            Optional<Path> chrome = chromeDetector().getBrowserPath("chrome");
+            return chrome.isPresent() ? chrome.get().toRealPath() : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String installedChromeVersion() {
+        try {
+            return chromeDetector().getBrowserVersionFromTheShell("chrome").orElse(null);
+        } catch (RuntimeException e) {
+            System.out.println("Warning: could not detect the installed Chrome version - " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Point webdriver.chrome.driver at a verified binary, resolving online only when allowed
+    public Path resolveChromeDriver() {
+        String explicit = System.getProperty(DRIVER_PROPERTY);
+        if (explicit != null && Files.isExecutable(Paths.get(explicit))) {
+            return Paths.get(explicit);
+        }
+
+        long start = System.nanoTime();
+        Properties manifest = readManifest();
+        Properties checked = (Properties) manifest.clone();
+        Path cached = verifiedBinary(manifest);
+        String installed = installedBrowserVersion(manifest);
+        // Keep new size, time and version stamps so the next run can skip the checks
+        if (!manifest.equals(checked)) {
+            saveStamps(manifest);
+        }
+        String pinnedVersion = manifest.getProperty("driverVersion");
+        if (cached != null && !sameMajorVersion(installed, pinnedVersion)) {
+            if (offline) {
+                throw new IllegalStateException("Installed Chrome " + installed + " does not match pinned chromedriver "
+                        + pinnedVersion + " in " + manifestFile + ", and -Ddriver.offline=true forbids downloading"
+                        + " a new one. Run once with network access or set -D" + DRIVER_PROPERTY + ".");
+            }
+            System.out.println("Warning: Chrome " + installed + " no longer matches pinned chromedriver "
+                    + pinnedVersion + ", resolving a new one");
+            return resolveOnline();
+        }
+        if (cached != null) {
+            System.setProperty(DRIVER_PROPERTY, cached.toString());
+            System.out.println("✓ Using pinned chromedriver " + manifest.getProperty("driverVersion")
+                    + " (" + (System.nanoTime() - start) / 1_000_000 + " ms)");
+            return cached;
+        }
+
+        if (offline) {
+            throw new IllegalStateException("No verified chromedriver cached in " + manifestFile
+                    + " and -Ddriver.offline=true forbids downloading one. Run once with network access,"
+                    + " copy a populated manifest directory to this machine, or set -D" + DRIVER_PROPERTY + ".");
+        }
+        return resolveOnline();
+    }
+
+    // True when either version is unknown, so an undetectable browser keeps the pin
+    static boolean sameMajorVersion(String browserVersion, String driverVersion) {
+        if (browserVersion == null || driverVersion == null) {
+            return true;
+        }
+        return VersionDetector.getMajorVersion(browserVersion).equals(VersionDetector.getMajorVersion(driverVersion));
+    }
+
+    // Installed browser version, from the manifest while the browser binary is unchanged
+    private String installedBrowserVersion(Properties manifest) {
+        String knownPath = manifest.getProperty("installedBrowserPath");
+        String knownVersion = manifest.getProperty("installedBrowserVersion");
+        if (knownPath != null && knownVersion != null
+                && String.valueOf(lastModified(Paths.get(knownPath))).equals(manifest.getProperty("installedBrowserModified"))) {
+            return knownVersion;
+        }
+        Path binary = browserBinary.get();
+        String version = browserVersion.apply(binary);
+        long modified = binary == null ? -1 : lastModified(binary);
+        if (version != null && modified >= 0) {
+            manifest.setProperty("installedBrowserPath", binary.toString());
+            manifest.setProperty("installedBrowserModified", String.valueOf(modified));
+            manifest.setProperty("installedBrowserVersion", version);
+        }
+        return version;
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private void saveStamps(Properties manifest) {
+        try {
+            writeManifest(manifest);
+        } catch (IOException e) {
+            System.out.println("Warning: could not update " + manifestFile + " - " + e.getMessage());
+        }
+    }
+
+    private Path verifiedBinary(Properties manifest) {
+        String driverPath = manifest.getProperty("driverPath");
+        String expected = manifest.getProperty("sha256");
+        if (driverPath == null || expected == null) {
+            return null;
+        }
+        Path binary = Paths.get(driverPath);
+        if (!Files.isExecutable(binary)) {
+            System.out.println("Warning: pinned chromedriver missing at " + binary);
+            return null;
+        }
+        try {
+            String size = String.valueOf(Files.size(binary));
+            String modified = String.valueOf(Files.getLastModifiedTime(binary).toMillis());
+            if (size.equals(manifest.getProperty("driverSize")) && modified.equals(manifest.getProperty("driverModified"))) {
+                return binary;
+            }
+            // Changed on disk (or not stamped yet): only the full checksum can vouch for it
+            if (!expected.equals(sha256(binary))) {
+                System.out.println("Warning: pinned chromedriver checksum mismatch at " + binary);
+                return null;
+            }
+            manifest.setProperty("driverSize", size);
+            manifest.setProperty("driverModified", modified);
+        } catch (IOException e) {
+            System.out.println("Warning: could not verify pinned chromedriver - " + e.getMessage());
+            return null;
+        }
+        return binary;
+    }
+
+    private Path resolveOnline() {
+        WebDriverManager manager = WebDriverManager.chromedriver();
+        manager.setup();
+        Path downloaded = Paths.get(manager.getDownloadedDriverPath());
+        String version = manager.getDownloadedDriverVersion();
+
+        try {
+            Path pinnedDir = manifestFile.getParent().resolve("chromedriver-" + version);
+            Files.createDirectories(pinnedDir);
+            Path pinned = pinnedDir.resolve(downloaded.getFileName());
+            Files.copy(downloaded, pinned, StandardCopyOption.REPLACE_EXISTING);
+            pinned.toFile().setExecutable(true);
+
+            Properties manifest = readManifest();
+            manifest.setProperty("driverPath", pinned.toAbsolutePath().toString());
+            manifest.setProperty("driverVersion", version);
+            manifest.setProperty("sha256", sha256(pinned));
+            manifest.setProperty("driverSize", String.valueOf(Files.size(pinned)));
+            manifest.setProperty("driverModified", String.valueOf(Files.getLastModifiedTime(pinned).toMillis()));
+            manifest.setProperty("resolvedAt", Instant.now().toString());
+            writeManifest(manifest);
+
+            System.setProperty(DRIVER_PROPERTY, pinned.toString());
+            System.out.println("✓ Pinned chromedriver " + version + " in " + manifestFile);
+            return pinned;
+        } catch (IOException e) {
+            System.out.println("Warning: could not pin chromedriver - " + e.getMessage());
+            return downloaded;
+        }
+    }
+
+    // Remember the browser version the pinned driver was used with
+    public void recordBrowserVersion(String browserVersion) {
+        if (browserVersion == null || browserVersion.isEmpty()) {
+            return;
+        }
+        synchronized (DriverResolver.class) {
+            Properties manifest = readManifest();
+            if (manifest.getProperty("driverPath") == null) {
+                return;
+            }
+            String pinned = manifest.getProperty("browserVersion");
+            if (browserVersion.equals(pinned)) {
+                return;
+            }
+            if (pinned != null) {
+                System.out.println("Warning: browser changed from " + pinned + " to " + browserVersion
+                        + "; pinned chromedriver " + manifest.getProperty("driverVersion") + " may not match");
+            }
+            manifest.setProperty("browserVersion", browserVersion);
+            try {
+                writeManifest(manifest);
+            } catch (IOException e) {
+                System.out.println("Warning: could not update " + manifestFile + " - " + e.getMessage());
+            }
+        }
+    }
+
+    private Properties readManifest() {
+        Properties manifest = new Properties();
+        if (Files.isRegularFile(manifestFile)) {
+            try (InputStream in = Files.newInputStream(manifestFile)) {
+                manifest.load(in);
+            } catch (IOException e) {
+                System.out.println("Warning: unreadable driver manifest " + manifestFile + " - " + e.getMessage());
+            }
+        }
+        return manifest;
+    }
+
+    private void writeManifest(Properties manifest) throws IOException {
+        Files.createDirectories(manifestFile.getParent());
+        // A temp file per writer: shard JVMs may update the manifest at the same time
+        Path temp = Files.createTempFile(manifestFile.toAbsolutePath().getParent(),
+                manifestFile.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                manifest.store(out, "Pinned chromedriver for offline startup");
+            }
+            Files.move(temp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static String sha256(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                byte[] buffer = new byte[64 * 1024];
+                while (in.read(buffer) != -1) {
+                    // Digest is updated as the stream is read
+                }
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
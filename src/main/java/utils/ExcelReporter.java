@@ -1,98 +1,369 @@
 package utils;
 
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ExcelReporter {
+    private static final String[] HEADERS = {"Item #", "Price", "Quantity", "Subtotal",
+                                             "Calculated Total", "Website Total", "Match", "Timestamp"};
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Rows kept in memory by the streaming workbook; older rows are flushed to a temp file
+    private static final int ROW_WINDOW = Integer.getInteger("report.rowWindow", 100);
+    private static final int MAX_COLUMN_CHARS = 60;
+
     private Workbook workbook;
     private Sheet sheet;
     private int rowNum;
-    
+    // Optional sink that keeps every validation across runs
+    private RunHistory history;
+
+    // Styles are shared by every row; POI caps the number of styles per workbook
+    private CellStyle boldStyle;
+    private CellStyle matchStyle;
+    private CellStyle mismatchStyle;
+    // Widest value written per column, used to size columns once at save time
+    private final int[] columnChars = new int[HEADERS.length];
+
+    // Streaming mode is opt-in with -Dreport.streaming=true
     public ExcelReporter(String sheetName) {
-        workbook = new XSSFWorkbook();
+        this(sheetName, Boolean.getBoolean("report.streaming"));
+    }
+
+    // Streaming mode keeps only a sliding window of rows in memory (SXSSF),
+    // for runs that report many thousands of cart lines
+    public ExcelReporter(String sheetName, boolean streaming) {
+        if (streaming) {
+            SXSSFWorkbook streamingWorkbook = new SXSSFWorkbook(ROW_WINDOW);
+            streamingWorkbook.setCompressTempFiles(true);
+            workbook = streamingWorkbook;
+        } else {
+            workbook = new XSSFWorkbook();
+        }
         sheet = workbook.createSheet(sheetName);
         rowNum = 0;
+        createStyles();
         createHeader();
     }
-    
-    private void createHeader() {
-        Row headerRow = sheet.createRow(rowNum++);
-        CellStyle headerStyle = workbook.createCellStyle();
+
+    private void createStyles() {
+        boldStyle = workbook.createCellStyle();
+        Font boldFont = workbook.createFont();
+        boldFont.setBold(true);
+        boldStyle.setFont(boldFont);
+
+        matchStyle = colouredBoldStyle(IndexedColors.GREEN);
+        mismatchStyle = colouredBoldStyle(IndexedColors.RED);
+    }
+
+    private CellStyle colouredBoldStyle(IndexedColors colour) {
+        CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
+        font.setColor(colour.getIndex());
         font.setBold(true);
-        headerStyle.setFont(font);
-        
-        String[] headers = {"Item #", "Price", "Quantity", "Subtotal", 
-                           "Calculated Total", "Website Total", "Match", "Timestamp"};
-        for (int i = 0; i < headers.length; i++) {
+        style.setFont(font);
+        return style;
+    }
+
+    private void createHeader() {
+        Row headerRow = sheet.createRow(rowNum++);
+        for (int i = 0; i < HEADERS.length; i++) {
             Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
+            setCell(cell, HEADERS[i]);
+            cell.setCellStyle(boldStyle);
         }
     }
     
+    // Also append every cart added from now on to the run history; null turns it off
+    public ExcelReporter withHistory(RunHistory history) {
+        this.history = history;
+        return this;
+    }
+
     public void addCartData(List<Double> prices, List<Integer> quantities, 
                             double calculatedTotal, double websiteTotal) {
-        // Add each item
+        List<String> products = new ArrayList<>();
         for (int i = 0; i < prices.size(); i++) {
+            products.add("Item " + (i + 1));
+        }
+        addCartData(products, prices, quantities, calculatedTotal, websiteTotal, -1);
+    }
+
+    // Same, with the product name of each line and how long the validation took (-1 if unknown)
+    public void addCartData(List<String> products, List<Double> prices, List<Integer> quantities,
+                            double calculatedTotal, double websiteTotal, long durationMillis) {
+        List<Long> priceCents = new ArrayList<>();
+        for (double price : prices) {
+            priceCents.add(Math.round(price * 100));
+        }
+        addCartData(products, priceCents, quantities, Math.round(calculatedTotal * 100),
+                Math.round(websiteTotal * 100), durationMillis);
+    }
+
+    // Same, with exact cents as parsed by MoneyParser; they go to the run history unchanged
+    public void addCartData(List<String> products, List<Long> priceCents, List<Integer> quantities,
+                            long calculatedCents, long websiteCents, long durationMillis) {
+        if (history != null) {
+            try {
+                history.recordValidation(products, priceCents, quantities, calculatedCents, websiteCents,
+                        durationMillis);
+            } catch (IOException e) {
+                System.err.println("Failed to append run history: " + e.getMessage());
+            }
+        }
+
+        // Add each item
+        for (int i = 0; i < priceCents.size(); i++) {
             Row row = sheet.createRow(rowNum++);
-            double price = prices.get(i);
+            long cents = priceCents.get(i);
             int qty = quantities.get(i);
-            double subtotal = price * qty;
             
-            row.createCell(0).setCellValue("Item " + (i + 1));
-            row.createCell(1).setCellValue(price);
-            row.createCell(2).setCellValue(qty);
-            row.createCell(3).setCellValue(subtotal);
+            setCell(row.createCell(0), "Item " + (i + 1));
+            setCell(row.createCell(1), MoneyParser.toDouble(cents));
+            setCell(row.createCell(2), qty);
+            setCell(row.createCell(3), MoneyParser.toDouble(cents * qty));
         }
         
         // Add totals row
         Row totalRow = sheet.createRow(rowNum++);
-        CellStyle boldStyle = workbook.createCellStyle();
-        Font boldFont = workbook.createFont();
-        boldFont.setBold(true);
-        boldStyle.setFont(boldFont);
         
         Cell totalLabel = totalRow.createCell(0);
-        totalLabel.setCellValue("TOTAL");
+        setCell(totalLabel, "TOTAL");
         totalLabel.setCellStyle(boldStyle);
         
-        totalRow.createCell(4).setCellValue(calculatedTotal);
-        totalRow.createCell(5).setCellValue(websiteTotal);
+        setCell(totalRow.createCell(4), MoneyParser.toDouble(calculatedCents));
+        setCell(totalRow.createCell(5), MoneyParser.toDouble(websiteCents));
         
-        boolean match = Math.abs(calculatedTotal - websiteTotal) < 0.01;
+        boolean match = calculatedCents == websiteCents;
         Cell matchCell = totalRow.createCell(6);
-        matchCell.setCellValue(match ? "YES" : "NO");
-        
-        CellStyle matchStyle = workbook.createCellStyle();
-        Font matchFont = workbook.createFont();
-        matchFont.setColor(match ? IndexedColors.GREEN.getIndex() : IndexedColors.RED.getIndex());
-        matchFont.setBold(true);
-        matchStyle.setFont(matchFont);
-        matchCell.setCellStyle(matchStyle);
-        
-        totalRow.createCell(7).setCellValue(LocalDateTime.now().format(
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        setCell(matchCell, match ? "YES" : "NO");
+        matchCell.setCellStyle(match ? matchStyle : mismatchStyle);
         
-        // Auto-size columns
-        for (int i = 0; i < 8; i++) {
-            sheet.autoSizeColumn(i);
+        setCell(totalRow.createCell(7), LocalDateTime.now().format(TIMESTAMP_FORMAT));
+    }
+
+    private void setCell(Cell cell, String value) {
+        cell.setCellValue(value);
+        trackWidth(cell.getColumnIndex(), value.length());
+    }
+
+    private void setCell(Cell cell, double value) {
+        cell.setCellValue(value);
+        trackWidth(cell.getColumnIndex(), String.valueOf(value).length());
+    }
+
+    private void trackWidth(int column, int chars) {
+        if (chars > columnChars[column]) {
+            columnChars[column] = chars;
+        }
+    }
+
+    // Size columns once from the widest tracked value instead of re-measuring every row
+    private void applyColumnWidths() {
+        for (int i = 0; i < columnChars.length; i++) {
+            int chars = Math.min(columnChars[i], MAX_COLUMN_CHARS) + 2;
+            sheet.setColumnWidth(i, chars * 256);
         }
     }
     
     public void saveReport(String fileName) {
+        applyColumnWidths();
+        File parent = new File(fileName).getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
         try (FileOutputStream outputStream = new FileOutputStream(fileName)) {
             workbook.write(outputStream);
-            workbook.close();
             System.out.println("✓ Excel report saved: " + fileName);
         } catch (IOException e) {
             System.err.println("Failed to save Excel report: " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    // Combine workbooks (e.g. one per shard) into a single report. Every sheet is
+    // copied as "<label> <sheet name>" with its values, cell styles and column widths
+    public static void mergeWorkbooks(Map<String, File> labelledWorkbooks, String fileName) {
+        try (XSSFWorkbook merged = new XSSFWorkbook()) {
+            Map<CellStyle, CellStyle> styles = new HashMap<>();
+            for (Map.Entry<String, File> source : labelledWorkbooks.entrySet()) {
+                try (Workbook input = WorkbookFactory.create(source.getValue(), null, true)) {
+                    for (Sheet sheet : input) {
+                        String name = uniqueSheetName(merged, source.getKey() + " " + sheet.getSheetName());
+                        copySheet(sheet, merged.createSheet(name), styles);
+                    }
+                }
+                // Styles are per workbook; don't map the next workbook's styles onto these
+                styles.clear();
+            }
+            File parent = new File(fileName).getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            try (FileOutputStream outputStream = new FileOutputStream(fileName)) {
+                merged.write(outputStream);
+            }
+            System.out.println("✓ Merged " + labelledWorkbooks.size() + " Excel report(s): " + fileName);
+        } catch (IOException e) {
+            System.err.println("Failed to merge Excel reports: " + e.getMessage());
+        }
+    }
+
+    private static void copySheet(Sheet from, Sheet to, Map<CellStyle, CellStyle> styles) {
+        int maxColumn = 0;
+        for (Row sourceRow : from) {
+            Row targetRow = to.createRow(sourceRow.getRowNum());
+            for (Cell sourceCell : sourceRow) {
+                Cell targetCell = targetRow.createCell(sourceCell.getColumnIndex());
+                switch (sourceCell.getCellType()) {
+                    case NUMERIC:
+                        targetCell.setCellValue(sourceCell.getNumericCellValue());
+                        break;
+                    case BOOLEAN:
+                        targetCell.setCellValue(sourceCell.getBooleanCellValue());
+                        break;
+                    case FORMULA:
+                        targetCell.setCellFormula(sourceCell.getCellFormula());
+                        break;
+                    case STRING:
+                        targetCell.setCellValue(sourceCell.getStringCellValue());
+                        break;
+                    default:
+                        break;
+                }
+                CellStyle style = styles.get(sourceCell.getCellStyle());
+                if (style == null) {
+                    style = to.getWorkbook().createCellStyle();
+                    style.cloneStyleFrom(sourceCell.getCellStyle());
+                    styles.put(sourceCell.getCellStyle(), style);
+                }
+                targetCell.setCellStyle(style);
+                maxColumn = Math.max(maxColumn, sourceCell.getColumnIndex());
+            }
+        }
+        for (int i = 0; i <= maxColumn; i++) {
+            to.setColumnWidth(i, from.getColumnWidth(i));
+        }
+    }
+
+    /**
+     * Trend workbook from the run history: a "Runs" sheet with every
+     * validation and a "Price Drift" sheet with each product's first, last,
+     * lowest and highest price. Rows are streamed, so long histories fit.
+     */
+    public static void exportHistory(RunHistory history, String fileName) throws IOException {
+        SXSSFWorkbook trends = new SXSSFWorkbook(ROW_WINDOW);
+        try {
+            CellStyle bold = trends.createCellStyle();
+            Font boldFont = trends.createFont();
+            boldFont.setBold(true);
+            bold.setFont(boldFont);
+
+            Sheet runs = trends.createSheet("Runs");
+            headerRow(runs, bold, "Run", "Timestamp", "Calculated Total", "Website Total", "Match",
+                    "Duration (ms)", "Lines");
+            int rowIndex = 1;
+            for (RunHistory.Validation validation : history.validations()) {
+                Row row = runs.createRow(rowIndex++);
+                row.createCell(0).setCellValue(String.valueOf(validation.getRunId()));
+                row.createCell(1).setCellValue(formatTime(validation.getTimestamp()));
+                row.createCell(2).setCellValue(validation.getCalculatedCents() / 100.0);
+                row.createCell(3).setCellValue(validation.getWebsiteCents() / 100.0);
+                row.createCell(4).setCellValue(validation.isMatch() ? "YES" : "NO");
+                if (validation.getDurationMillis() >= 0) {
+                    row.createCell(5).setCellValue(validation.getDurationMillis());
+                }
+                row.createCell(6).setCellValue(validation.getLineCount());
+            }
+
+            Sheet drift = trends.createSheet("Price Drift");
+            headerRow(drift, bold, "Product", "Observations", "First Price", "Last Price", "Min Price",
+                    "Max Price", "Price Changes", "Drift %", "First Seen", "Last Seen");
+            rowIndex = 1;
+            for (RunHistory.PriceDrift product : history.priceDrift().values()) {
+                Row row = drift.createRow(rowIndex++);
+                row.createCell(0).setCellValue(product.getProduct());
+                row.createCell(1).setCellValue(product.getObservations());
+                row.createCell(2).setCellValue(product.getFirstCents() / 100.0);
+                row.createCell(3).setCellValue(product.getLastCents() / 100.0);
+                row.createCell(4).setCellValue(product.getMinCents() / 100.0);
+                row.createCell(5).setCellValue(product.getMaxCents() / 100.0);
+                row.createCell(6).setCellValue(product.getPriceChanges());
+                if (product.getFirstCents() != 0) {
+                    row.createCell(7).setCellValue(Math.round((product.getLastCents() - product.getFirstCents())
+                            * 10000.0 / product.getFirstCents()) / 100.0);
+                }
+                row.createCell(8).setCellValue(formatTime(product.getFirstSeen()));
+                row.createCell(9).setCellValue(formatTime(product.getLastSeen()));
+            }
+            for (Sheet sheet : trends) {
+                for (int i = 0; i < 10; i++) {
+                    sheet.setColumnWidth(i, (i == 0 ? 40 : 20) * 256);
+                }
+            }
+
+            File parent = new File(fileName).getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            try (FileOutputStream outputStream = new FileOutputStream(fileName)) {
+                trends.write(outputStream);
+            }
+            System.out.println("✓ Run history exported: " + fileName);
+        } finally {
+            trends.dispose();
+            trends.close();
+        }
+    }
+
+    private static void headerRow(Sheet sheet, CellStyle style, String... headers) {
+        Row row = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(style);
+        }
+    }
+
+    private static String formatTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).format(TIMESTAMP_FORMAT);
+    }
+
+    // Sheet names are limited to 31 characters and must be unique
+    private static String uniqueSheetName(Workbook workbook, String name) {
+        String base = WorkbookUtil.createSafeSheetName(name);
+        String candidate = base;
+        for (int i = 2; workbook.getSheet(candidate) != null; i++) {
+            String suffix = " (" + i + ")";
+            candidate = base.substring(0, Math.min(base.length(), 31 - suffix.length())) + suffix;
+        }
+        return candidate;
+    }
+
+    // Release the workbook without saving it
+    public void close() {
+        try {
+            if (workbook instanceof SXSSFWorkbook) {
+                // Delete the temp files backing flushed rows
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+            workbook.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close Excel workbook: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
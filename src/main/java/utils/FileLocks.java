@@ -0,0 +1,57 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sections that only one process (shard JVM) at a time may run, guarded by an
+ * exclusive lock on a lock file next to the data it protects. The lock is
+ * advisory: every writer of the data must go through the same lock file.
+ * A file lock is held per JVM, not per thread, so threads of one JVM queue on
+ * an in-memory lock per path before taking it.
+ */
+final class FileLocks {
+
+    interface LockedAction {
+        void run() throws IOException;
+    }
+
+    interface LockedCall<T> {
+        T call() throws IOException;
+    }
+
+    private static final Map<Path, ReentrantLock> THREAD_LOCKS = new ConcurrentHashMap<>();
+
+    private FileLocks() {
+    }
+
+    // Run action while holding the lock; blocks until other processes release it
+    static void run(Path lockFile, LockedAction action) throws IOException {
+        call(lockFile, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static <T> T call(Path lockFile, LockedCall<T> body) throws IOException {
+        ReentrantLock threadLock = THREAD_LOCKS.computeIfAbsent(lockFile.toAbsolutePath().normalize(),
+                path -> new ReentrantLock());
+        threadLock.lock();
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                return body.call();
+            } finally {
+                lock.release();
+            }
+        } finally {
+            threadLock.unlock();
+        }
+    }
+}
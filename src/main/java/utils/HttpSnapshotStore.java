@@ -0,0 +1,243 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.json.Json;
+
+/**
+ * On-disk store of recorded HTTP responses.
+ *
+ * Layout of the store directory:
+ *   index.jsonl   one JSON object per recorded response (method, url, request
+ *                 body hash, status, headers, body hash); later lines win for
+ *                 the same request
+ *   bodies/       response bodies named by SHA-256, so identical assets
+ *                 served from several URLs are stored once
+ *
+ * Requests are matched on method plus URL, with volatile query parameters
+ * (cache busters) removed. Requests other than GET and HEAD also match on a
+ * hash of their body, so POSTs with different payloads replay their own
+ * responses.
+ */
+public class HttpSnapshotStore {
+
+    private static final String INDEX_FILE = "index.jsonl";
+    private static final String BODIES_DIR = "bodies";
+
+    private final Path directory;
+    private final Set<String> ignoredParams;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Json json = new Json();
+
+    public HttpSnapshotStore(Path directory, Set<String> ignoredParams) throws IOException {
+        this.directory = directory;
+        this.ignoredParams = ignoredParams;
+        Files.createDirectories(directory.resolve(BODIES_DIR));
+        loadIndex();
+    }
+
+    public HttpSnapshotStore(Path directory) throws IOException {
+        this(directory, new HashSet<>(Collections.singletonList("_")));
+    }
+
+    private void loadIndex() throws IOException {
+        Path index = directory.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(index)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                Map<String, Object> raw = json.toType(line, Json.MAP_TYPE);
+                Entry entry = Entry.fromJson(raw);
+                entries.put(key(entry.method, entry.url, entry.requestHash), entry);
+            }
+        }
+    }
+
+    // Store a response to a request without a body and append it to the index
+    public void record(String method, String url, int status,
+                       Map<String, String> headers, byte[] body) throws IOException {
+        record(method, url, null, status, headers, body);
+    }
+
+    // Store a response and append it to the index; requestBody may be null
+    public synchronized void record(String method, String url, byte[] requestBody, int status,
+                                    Map<String, String> headers, byte[] body) throws IOException {
+        String requestHash = requestHash(method, requestBody);
+        String hash = sha256(body);
+        Path bodyFile = directory.resolve(BODIES_DIR).resolve(hash);
+        if (!Files.exists(bodyFile)) {
+            Files.write(bodyFile, body);
+        }
+        Entry entry = new Entry(method, url, requestHash, status, headers, hash);
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(INDEX_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(json.toJson(entry.toJson()).replace("\n", ""));
+            writer.newLine();
+        }
+        entries.put(key(method, url, requestHash), entry);
+    }
+
+    // Recorded response for a request without a body, or null
+    public Entry lookup(String method, String url) {
+        return lookup(method, url, null);
+    }
+
+    // Recorded response for the request, or null; requestBody may be null
+    public Entry lookup(String method, String url, byte[] requestBody) {
+        return entries.get(key(method, url, requestHash(method, requestBody)));
+    }
+
+    public byte[] readBody(Entry entry) throws IOException {
+        return Files.readAllBytes(directory.resolve(BODIES_DIR).resolve(entry.bodyHash));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    String key(String method, String url, String requestHash) {
+        String key = method.toUpperCase() + " " + normalizeUrl(url);
+        return requestHash == null ? key : key + " " + requestHash;
+    }
+
+    // Hash of the request body, or null for bodiless requests and methods whose body is ignored
+    private static String requestHash(String method, byte[] requestBody) {
+        if (requestBody == null || requestBody.length == 0
+                || "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method)) {
+            return null;
+        }
+        return sha256(requestBody);
+    }
+
+    // Drop the fragment and ignored query parameters, keeping the rest in order
+    String normalizeUrl(String url) {
+        try {
+            URI uri = new URI(url);
+            String query = uri.getRawQuery();
+            StringBuilder kept = new StringBuilder();
+            if (query != null) {
+                for (String pair : query.split("&")) {
+                    String name = pair.contains("=") ? pair.substring(0, pair.indexOf('=')) : pair;
+                    if (!ignoredParams.contains(name)) {
+                        if (kept.length() > 0) {
+                            kept.append('&');
+                        }
+                        kept.append(pair);
+                    }
+                }
+            }
+            String base = new URI(uri.getScheme(), uri.getRawAuthority(), uri.getRawPath(), null, null).toString();
+            return kept.length() == 0 ? base : base + "?" + kept;
+        } catch (URISyntaxException e) {
+            int hash = url.indexOf('#');
+            return hash >= 0 ? url.substring(0, hash) : url;
+        }
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Parse a comma-separated parameter list, e.g. from a system property
+    public static Set<String> paramSet(String commaSeparated) {
+        Set<String> params = new HashSet<>();
+        for (String param : Arrays.asList(commaSeparated.split(","))) {
+            if (!param.trim().isEmpty()) {
+                params.add(param.trim());
+            }
+        }
+        return params;
+    }
+
+    public static class Entry {
+        final String method;
+        final String url;
+        final String requestHash;
+        final int status;
+        final Map<String, String> headers;
+        final String bodyHash;
+
+        Entry(String method, String url, String requestHash, int status, Map<String, String> headers,
+              String bodyHash) {
+            this.method = method;
+            this.url = url;
+            this.requestHash = requestHash;
+            this.status = status;
+            this.headers = headers;
+            this.bodyHash = bodyHash;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        Map<String, Object> toJson() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("method", method);
+            map.put("url", url);
+            if (requestHash != null) {
+                map.put("request", requestHash);
+            }
+            map.put("status", status);
+            map.put("headers", headers);
+            map.put("body", bodyHash);
+            return map;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Entry fromJson(Map<String, Object> map) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            Object rawHeaders = map.get("headers");
+            if (rawHeaders instanceof Map) {
+                ((Map<String, Object>) rawHeaders).forEach((name, value) -> headers.put(name, String.valueOf(value)));
+            }
+            Object requestHash = map.get("request");
+            return new Entry(String.valueOf(map.get("method")), String.valueOf(map.get("url")),
+                    requestHash == null ? null : String.valueOf(requestHash),
+                    ((Number) map.get("status")).intValue(), headers, String.valueOf(map.get("body")));
+        }
+    }
+}
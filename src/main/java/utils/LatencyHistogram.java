@@ -0,0 +1,81 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: values below 16 us are
+ * exact, larger values fall into 16 sub-buckets per power of two (about 6%
+ * relative error). Recording is a couple of atomic increments, so it is cheap
+ * enough to call around every wait.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Enough buckets for values up to 2^44 us (about 200 days)
+    private static final int BUCKETS = SUB_BUCKETS + (44 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketIndex(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    public double getMeanMicros() {
+        long count = total.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100), capped at the observed max
+    public long getPercentileMicros(double percentile) {
+        long count = total.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) - SUB_BUCKETS;
+        return Math.min(BUCKETS - 1, SUB_BUCKETS + shift * SUB_BUCKETS + subBucket);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,158 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.json.Json;
+
+/**
+ * Selenium Grid in standalone mode, started as a child process on this machine.
+ *
+ * The grid runs from the selenium-grid jar on the current classpath (added by
+ * the "sharded" Maven profile) or from a server jar given with -Dgrid.serverJar.
+ * It launches Chrome sessions itself, using the chromedriver pinned by
+ * DriverResolver when one is available. Nothing outside this machine is used.
+ *
+ * Configured with system properties:
+ *   grid.port          - port to listen on (default 4444)
+ *   grid.serverJar     - selenium-server jar to run instead of the classpath
+ *   grid.startTimeout  - seconds to wait for the grid to report ready (default 60)
+ */
+public class LocalGrid implements AutoCloseable {
+
+    private static final String GRID_MAIN = "org.openqa.selenium.grid.Main";
+
+    private final Process process;
+    private final String url;
+
+    private LocalGrid(Process process, String url) {
+        this.process = process;
+        this.url = url;
+    }
+
+    // Start a grid that accepts up to maxSessions concurrent browsers and wait until it is ready
+    public static LocalGrid start(int maxSessions, File logFile) throws IOException {
+        int port = Integer.getInteger("grid.port", 4444);
+        String url = "http://localhost:" + port;
+
+        List<String> command = new ArrayList<>();
+        command.add(javaBinary());
+        String chromeDriver = pinnedChromeDriver();
+        if (chromeDriver != null) {
+            command.add("-Dwebdriver.chrome.driver=" + chromeDriver);
+        }
+        String serverJar = System.getProperty("grid.serverJar");
+        if (serverJar != null) {
+            command.add("-jar");
+            command.add(serverJar);
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(GRID_MAIN);
+        }
+        command.add("standalone");
+        command.add("--port");
+        command.add(String.valueOf(port));
+        command.add("--max-sessions");
+        command.add(String.valueOf(maxSessions));
+        // Allow more sessions than CPU cores; browsers mostly wait on the network
+        command.add("--override-max-sessions");
+        command.add("true");
+
+        logFile.getAbsoluteFile().getParentFile().mkdirs();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile)
+                .start();
+        LocalGrid grid = new LocalGrid(process, url);
+        grid.awaitReady(Long.getLong("grid.startTimeout", 60), logFile);
+        System.out.println("✓ Local Selenium Grid ready at " + url + " (" + maxSessions + " sessions)");
+        return grid;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    private void awaitReady(long timeoutSeconds, File logFile) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("Selenium Grid exited with code " + process.exitValue()
+                        + ", see " + logFile.getPath());
+            }
+            if (isReady()) {
+                return;
+            }
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IOException("Interrupted while starting Selenium Grid", e);
+            }
+        }
+        close();
+        throw new IOException("Selenium Grid not ready after " + timeoutSeconds + "s, see " + logFile.getPath());
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isReady() {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url + "/status").openConnection();
+            connection.setConnectTimeout(1000);
+            connection.setReadTimeout(1000);
+            try (InputStream in = connection.getInputStream()) {
+                Map<String, Object> status = new Json().toType(
+                        new String(in.readAllBytes(), StandardCharsets.UTF_8), Json.MAP_TYPE);
+                Object value = status.get("value");
+                return value instanceof Map && Boolean.TRUE.equals(((Map<String, Object>) value).get("ready"));
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // The grid inherits our pinned chromedriver; if none can be resolved it falls back to Selenium Manager
+    private static String pinnedChromeDriver() {
+        try {
+            Path driver = new DriverResolver().resolveChromeDriver();
+            return driver == null ? null : driver.toString();
+        } catch (RuntimeException e) {
+            System.out.println("Warning: no pinned chromedriver for the grid - " + e.getMessage());
+            return null;
+        }
+    }
+
+    static String javaBinary() {
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    }
+
+    @Override
+    public void close() {
+        if (!process.isAlive()) {
+            return;
+        }
+        process.destroy();
+        try {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+        System.out.println("✓ Local Selenium Grid stopped");
+    }
+}
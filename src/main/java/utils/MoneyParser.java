@@ -0,0 +1,215 @@
+package utils;
+
+/**
+ * Parses displayed prices into exact cents in a single pass, without regex
+ * or intermediate strings.
+ *
+ * Handles currency symbols and codes ("$", "€", "USD"), thousands separators
+ * (",", ".", "'", spaces), decimal commas ("1.234,56 €"), negative amounts
+ * ("-$5.00"), ranges ("$99.00 - $149.00", "$99 to $149": the low end) and
+ * strike-through pairs ("$349.00 $279.00": the last, current price).
+ *
+ * When there are several amounts, only those that look like prices - next to
+ * a currency symbol or code, or with a decimal part - are candidates, so counts
+ * such as "$837.00 (3 items)" or "$279.00 x 2" don't replace the price.
+ *
+ * A separator followed by one or two digits at the end of a number is the
+ * decimal separator; one followed by three digits is a thousands separator.
+ * Text without a well-formed amount, or with several bare numbers and no
+ * price among them, throws NumberFormatException rather than reading as zero.
+ */
+public final class MoneyParser {
+
+    // More digits than this cannot be held in cents without overflow
+    private static final int MAX_DIGITS = 17;
+
+    private MoneyParser() {
+    }
+
+    public static long parseCents(CharSequence text) {
+        if (text == null) {
+            throw new NumberFormatException("No price text");
+        }
+        int length = text.length();
+
+        long firstAmount = 0;
+        long lastPrice = 0;
+        int amounts = 0;
+        int prices = 0;
+        boolean lastPriceIsFirst = false;
+        boolean negative = false;
+        boolean rangeAfterFirst = false;
+        // Currency symbol or code just before the next amount, and the run of capitals for codes
+        boolean currencyBefore = false;
+        int capitals = 0;
+
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                if (amounts == 0 && (c == '-' || c == '\u2212')) {
+                    negative = true;
+                } else if (amounts == 1 && isRangeMarker(text, i)) {
+                    rangeAfterFirst = true;
+                }
+                if (Character.getType(c) == Character.CURRENCY_SYMBOL) {
+                    currencyBefore = true;
+                    capitals = 0;
+                } else if (c >= 'A' && c <= 'Z') {
+                    capitals++;
+                } else {
+                    if (capitals > 0) {
+                        currencyBefore = capitals == 3;
+                    }
+                    capitals = 0;
+                    // Only whitespace may separate a symbol from its amount
+                    if (!Character.isSpaceChar(c)) {
+                        currencyBefore = false;
+                    }
+                }
+                i++;
+                continue;
+            }
+            if (capitals > 0) {
+                currencyBefore = capitals == 3;
+            }
+            capitals = 0;
+
+            // Scan one number token starting at i
+            long value = 0;
+            int digits = 0;
+            int groupLength = 0;
+            int separators = 0;
+            char lastSeparator = 0;
+            char groupSeparator = 0;
+            boolean firstGroup = true;
+            boolean longFirstGroup = false;
+            boolean valid = true;
+
+            while (i < length) {
+                c = text.charAt(i);
+                if (isDigit(c)) {
+                    if (++digits > MAX_DIGITS) {
+                        throw new NumberFormatException("Price too large: '" + text + "'");
+                    }
+                    value = value * 10 + (c - '0');
+                    groupLength++;
+                    i++;
+                    continue;
+                }
+                boolean decimalCandidate = c == '.' || c == ',';
+                boolean groupOnly = c == '\'' || c == ' ' || c == '\u00A0' || c == '\u2009' || c == '\u202F';
+                if (!(decimalCandidate || groupOnly) || i + 1 >= length || !isDigit(text.charAt(i + 1))) {
+                    break;
+                }
+                if (groupOnly && (lastSeparator == '.' || lastSeparator == ',') && lastSeparator != groupSeparator) {
+                    // Whitespace after a decimal part starts the next amount
+                    break;
+                }
+                if (groupOnly && (firstGroup ? groupLength > 3 : groupLength != 3)) {
+                    break;
+                }
+                // The group before this separator must be a valid thousands group,
+                // unless this separator turns out to be the decimal point
+                if (firstGroup) {
+                    longFirstGroup = groupLength > 3;
+                } else if (groupLength != 3) {
+                    valid = false;
+                }
+                if (lastSeparator != 0) {
+                    // Every separator but the last is a thousands separator, all the same character
+                    if (groupSeparator == 0) {
+                        groupSeparator = lastSeparator;
+                    } else if (groupSeparator != lastSeparator) {
+                        valid = false;
+                    }
+                }
+                lastSeparator = c;
+                separators++;
+                firstGroup = false;
+                groupLength = 0;
+                i++;
+            }
+
+            long cents;
+            boolean decimal = (lastSeparator == '.' || lastSeparator == ',')
+                    && (groupLength == 1 || groupLength == 2)
+                    && lastSeparator != groupSeparator;
+            if (decimal) {
+                valid &= !longFirstGroup || separators == 1;
+                cents = groupLength == 1 ? value * 10 : value;
+            } else {
+                valid &= separators == 0 || (groupLength == 3 && !longFirstGroup
+                        && (groupSeparator == 0 || groupSeparator == lastSeparator));
+                cents = value * 100;
+            }
+            if (!valid) {
+                throw new NumberFormatException("Malformed price: '" + text + "'");
+            }
+
+            boolean price = decimal || currencyBefore || currencyAfter(text, i);
+            if (price) {
+                lastPrice = cents;
+                lastPriceIsFirst = amounts == 0;
+                prices++;
+            }
+            if (amounts == 0) {
+                firstAmount = cents;
+            }
+            amounts++;
+            currencyBefore = false;
+        }
+
+        if (amounts == 0) {
+            throw new NumberFormatException("No price in '" + text + "'");
+        }
+        if (amounts == 1 || rangeAfterFirst) {
+            return negative ? -firstAmount : firstAmount;
+        }
+        if (prices == 0) {
+            throw new NumberFormatException("Ambiguous price: '" + text + "'");
+        }
+        return negative && lastPriceIsFirst ? -lastPrice : lastPrice;
+    }
+
+    // Dollars and cents as a plain decimal string, e.g. 123456 -> "1234.56"
+    public static String formatCents(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + (abs / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    // A currency symbol or code right after the amount at end, e.g. "279 €", "279 USD"
+    private static boolean currencyAfter(CharSequence text, int end) {
+        int i = end;
+        while (i < text.length() && Character.isSpaceChar(text.charAt(i))) {
+            i++;
+        }
+        if (i < text.length() && Character.getType(text.charAt(i)) == Character.CURRENCY_SYMBOL) {
+            return true;
+        }
+        int capitals = 0;
+        while (i + capitals < text.length() && text.charAt(i + capitals) >= 'A' && text.charAt(i + capitals) <= 'Z') {
+            capitals++;
+        }
+        return capitals == 3 && (i + 3 == text.length() || !Character.isLetter(text.charAt(i + 3)));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // "-", en/em dash or the word "to" between two amounts
+    private static boolean isRangeMarker(CharSequence text, int i) {
+        char c = text.charAt(i);
+        if (c == '-' || c == '\u2013' || c == '\u2014') {
+            return true;
+        }
+        return (c == 't' || c == 'T') && i + 1 < text.length()
+                && (text.charAt(i + 1) == 'o' || text.charAt(i + 1) == 'O');
+    }
+}
@@ -0,0 +1,145 @@
+package utils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+/**
+ * Tracks in-flight network requests of a browser session through Chrome
+ * DevTools Network events, so callers can wait until the page goes quiet
+ * instead of sleeping for a fixed time.
+ *
+ * One monitor is attached per driver and shared by every page object using it.
+ * Requests that stay open longer than {@code network.maxRequestMillis}
+ * (long polls, analytics beacons, streaming) stop counting as in flight.
+ */
+public class NetworkMonitor {
+
+    public static final long DEFAULT_QUIET_MILLIS = Long.getLong("network.quietMillis", 500);
+    private static final long MAX_REQUEST_NANOS =
+            Duration.ofMillis(Long.getLong("network.maxRequestMillis", 10000)).toNanos();
+    private static final long CHECK_INTERVAL_MILLIS = 20;
+
+    private static final Map<WebDriver, NetworkMonitor> MONITORS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<String, Long> inFlight = new ConcurrentHashMap<>();
+    private volatile long lastActivityNanos = System.nanoTime();
+    // Bytes received over the network (encodedDataLength), including cross-origin resources
+    private final AtomicLong transferredBytes = new AtomicLong();
+
+    private NetworkMonitor() {
+    }
+
+    // Monitor for the driver, attaching one on first use; null when DevTools is unavailable
+    public static NetworkMonitor forDriver(WebDriver driver) {
+        synchronized (MONITORS) {
+            if (MONITORS.containsKey(driver)) {
+                return MONITORS.get(driver);
+            }
+            NetworkMonitor monitor = attach(driver);
+            MONITORS.put(driver, monitor);
+            return monitor;
+        }
+    }
+
+    private static NetworkMonitor attach(WebDriver driver) {
+        if (!(driver instanceof HasDevTools)) {
+            return null;
+        }
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            NetworkMonitor monitor = new NetworkMonitor();
+            devTools.addListener(requestEvent("Network.requestWillBeSent"), monitor::requestStarted);
+            devTools.addListener(new Event<Map<String, Object>>("Network.loadingFinished",
+                    input -> input.read(Json.MAP_TYPE)), monitor::requestFinished);
+            devTools.addListener(requestEvent("Network.loadingFailed"), monitor::requestEnded);
+            devTools.send(new Command<Void>("Network.enable", Collections.emptyMap()));
+            return monitor;
+        } catch (Exception e) {
+            System.out.println("Warning: network monitoring unavailable - " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Event carrying only the request id, independent of the browser's CDP version
+    private static Event<String> requestEvent(String method) {
+        return new Event<>(method, input -> {
+            Map<String, Object> params = input.read(Json.MAP_TYPE);
+            return String.valueOf(params.get("requestId"));
+        });
+    }
+
+    private void requestStarted(String requestId) {
+        inFlight.put(requestId, System.nanoTime());
+        lastActivityNanos = System.nanoTime();
+    }
+
+    private void requestFinished(Map<String, Object> params) {
+        Object bytes = params.get("encodedDataLength");
+        if (bytes instanceof Number) {
+            transferredBytes.addAndGet(((Number) bytes).longValue());
+        }
+        requestEnded(String.valueOf(params.get("requestId")));
+    }
+
+    private void requestEnded(String requestId) {
+        inFlight.remove(requestId);
+        lastActivityNanos = System.nanoTime();
+    }
+
+    // Bytes received since the previous call
+    public long takeTransferredBytes() {
+        return transferredBytes.getAndSet(0);
+    }
+
+    // Number of requests currently counted as in flight
+    public int getInFlightCount() {
+        long now = System.nanoTime();
+        inFlight.values().removeIf(started -> now - started > MAX_REQUEST_NANOS);
+        return inFlight.size();
+    }
+
+    // True when nothing has been in flight for the quiet window, without blocking
+    public boolean isIdleFor(Duration quietWindow) {
+        return getInFlightCount() == 0 && System.nanoTime() - lastActivityNanos >= quietWindow.toNanos();
+    }
+
+    /**
+     * Block until no request has been in flight for {@code quietWindow}.
+     * The quiet window starts no earlier than this call, so requests
+     * triggered just before it still get a chance to start.
+     *
+     * @return true if the network went idle, false on timeout
+     */
+    public boolean awaitIdle(Duration quietWindow, Duration timeout) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        long quietNanos = quietWindow.toNanos();
+
+        while (System.nanoTime() < deadline) {
+            long quietSince = Math.max(start, lastActivityNanos);
+            if (getInFlightCount() == 0 && System.nanoTime() - quietSince >= quietNanos) {
+                return true;
+            }
+            try {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.json.Json;
+
+/**
+ * Real-user performance of every page-object navigation, as the browser
+ * measured it: Navigation Timing, a Resource Timing summary, FCP, LCP, CLS,
+ * TTFB and transferred bytes (BasePage.recordNavigation collects them).
+ *
+ * Each navigation is one JSON line in <report.dir>/Performance_<millis>.jsonl,
+ * tagged with the page class, the page method and the scenario (the test
+ * method running on the thread), so runs can be compared with jq or loaded
+ * into any dataframe. A p50/p95 summary per page method is printed at the end.
+ *
+ * Configured with system properties:
+ *   perf.capture   - collect navigation metrics (default true)
+ *   perf.scenario  - scenario tag for navigations made outside a test method
+ */
+public class PagePerformance {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("perf.capture", "true"));
+    private static final PagePerformance INSTANCE = new PagePerformance(
+            new File(Constants.REPORT_DIR, "Performance_" + System.currentTimeMillis() + ".jsonl"));
+
+    private final File file;
+    private final ThreadLocal<String> scenario = new ThreadLocal<>();
+    private final Map<String, Summary> summaries = new ConcurrentHashMap<>();
+    private PrintWriter out;
+    private int records;
+
+    public PagePerformance(File file) {
+        this.file = file;
+    }
+
+    public static PagePerformance getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Tag every navigation on this thread until the next call, e.g. with the running test method
+    public void setScenario(String name) {
+        scenario.set(name);
+    }
+
+    public String getScenario() {
+        String name = scenario.get();
+        return name != null ? name : System.getProperty("perf.scenario", "none");
+    }
+
+    // Append one navigation; metrics are the browser-side values, in milliseconds and bytes
+    public void record(String page, String action, Map<String, Object> metrics) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("timestamp", System.currentTimeMillis());
+        line.put("page", page);
+        line.put("action", action);
+        line.put("scenario", getScenario());
+        line.put("thread", Thread.currentThread().getName());
+        line.putAll(metrics);
+
+        summaries.computeIfAbsent(page + "." + action, unused -> new Summary()).add(metrics);
+        String json = new Json().toJson(line).replace("\n", "");
+        synchronized (this) {
+            try {
+                if (out == null) {
+                    file.getAbsoluteFile().getParentFile().mkdirs();
+                    out = new PrintWriter(file, StandardCharsets.UTF_8);
+                }
+                out.println(json);
+                // Flushed per line so a crashed run still leaves its measurements
+                out.flush();
+                records++;
+            } catch (IOException e) {
+                System.err.println("Failed to write performance log: " + e.getMessage());
+            }
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Close the log and print the per-method summary; returns the log, or null if nothing was recorded
+    public synchronized File close() {
+        if (out == null) {
+            return null;
+        }
+        out.close();
+        out = null;
+        System.out.println("✓ Page performance log saved: " + file.getPath() + " (" + records + " navigations)");
+        summaries.forEach((key, summary) -> System.out.println("  " + key + ": " + summary));
+        return file;
+    }
+
+    private static final class Summary {
+        final LatencyHistogram ttfb = new LatencyHistogram();
+        final LatencyHistogram lcp = new LatencyHistogram();
+        long bytes;
+        int count;
+        int timedOut;
+
+        synchronized void add(Map<String, Object> metrics) {
+            count++;
+            if (Boolean.TRUE.equals(metrics.get("timedOut"))) {
+                timedOut++;
+            }
+            record(ttfb, metrics.get("ttfb"));
+            record(lcp, metrics.get("lcp"));
+            Object transferred = metrics.get("transferredBytes");
+            if (transferred instanceof Number) {
+                bytes += ((Number) transferred).longValue();
+            }
+        }
+
+        private static void record(LatencyHistogram histogram, Object millis) {
+            if (millis instanceof Number) {
+                histogram.recordMicros((long) (((Number) millis).doubleValue() * 1000));
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return count + " navigations" + (timedOut > 0 ? " (" + timedOut + " timed out)" : "") + ", TTFB p50 " + ttfb.getPercentileMicros(50) / 1000 + " ms"
+                    + ", LCP p50 " + lcp.getPercentileMicros(50) / 1000 + " ms / p95 "
+                    + lcp.getPercentileMicros(95) / 1000 + " ms"
+                    + ", " + bytes / count / 1024 + " KB transferred on average";
+        }
+    }
+}
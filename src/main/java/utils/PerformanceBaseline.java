@@ -0,0 +1,253 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.openqa.selenium.json.Json;
+
+/**
+ * Rolling timing history per step ("test.Class.method" or "page.Page.method")
+ * and the regression check against it.
+ *
+ * The baseline file keeps, per step, the median duration of each of the last
+ * perf.baselineRuns runs. A step regresses when its duration lies more than
+ * perf.threshold robust standard deviations (1.4826 x MAD) above the median of
+ * that history and is also at least perf.minDeltaMs slower. Budgets are fixed
+ * upper bounds per step that apply with or without history.
+ *
+ * Configured with system properties:
+ *   perf.baselineRuns  - runs kept per step (default 20)
+ *   perf.minRuns       - runs needed before regressions are judged (default 5)
+ *   perf.threshold     - robust z-score counted as a regression (default 3.0)
+ *   perf.minDeltaMs    - smallest slowdown counted as a regression (default 100)
+ *   perf.minNoise      - noise floor as a fraction of the median, for very stable steps (default 0.05)
+ */
+public class PerformanceBaseline {
+
+    public enum Status { OK, NEW, LEARNING, REGRESSION, OVER_BUDGET }
+
+    private static final int KEEP_RUNS = Integer.getInteger("perf.baselineRuns", 20);
+    private static final int MIN_RUNS = Integer.getInteger("perf.minRuns", 5);
+    private static final double THRESHOLD = Double.parseDouble(System.getProperty("perf.threshold", "3.0"));
+    private static final double MIN_DELTA_MS = Double.parseDouble(System.getProperty("perf.minDeltaMs", "100"));
+    private static final double MIN_NOISE = Double.parseDouble(System.getProperty("perf.minNoise", "0.05"));
+    // Scales the MAD to a standard deviation for normally distributed timings
+    private static final double MAD_SCALE = 1.4826;
+
+    // step -> [{"run": id, "ms": median, "samples": n}, ...], oldest first
+    private final Map<String, List<Map<String, Object>>> history;
+    private final Map<String, Double> budgets;
+
+    private PerformanceBaseline(Map<String, List<Map<String, Object>>> history, Map<String, Double> budgets) {
+        this.history = history;
+        this.budgets = budgets;
+    }
+
+    // Baseline from the file (empty if it doesn't exist yet) with the given budgets
+    public static PerformanceBaseline load(Path file, Map<String, Double> budgets) throws IOException {
+        return new PerformanceBaseline(read(file), budgets);
+    }
+
+    // Baseline without history, e.g. when the file is unreadable
+    public static PerformanceBaseline empty(Map<String, Double> budgets) {
+        return new PerformanceBaseline(new TreeMap<>(), budgets);
+    }
+
+    // Budgets in milliseconds from a properties file of step=ms; empty if the file doesn't exist
+    public static Map<String, Double> loadBudgets(Path file) throws IOException {
+        Map<String, Double> budgets = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return budgets;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        for (String step : properties.stringPropertyNames()) {
+            try {
+                budgets.put(step, Double.parseDouble(properties.getProperty(step).trim()));
+            } catch (NumberFormatException e) {
+                System.out.println("Warning: ignoring budget " + step + "=" + properties.getProperty(step));
+            }
+        }
+        return budgets;
+    }
+
+    // Judge one duration of a step against its budget and history
+    public Verdict evaluate(String step, double currentMs) {
+        List<Double> runs = new ArrayList<>();
+        for (Map<String, Object> run : history.getOrDefault(step, Collections.emptyList())) {
+            runs.add(((Number) run.get("ms")).doubleValue());
+        }
+        Double budget = budgets.get(step);
+        double median = runs.isEmpty() ? Double.NaN : median(runs);
+        double mad = runs.isEmpty() ? Double.NaN : mad(runs, median);
+
+        Status status;
+        if (budget != null && currentMs > budget) {
+            status = Status.OVER_BUDGET;
+        } else if (runs.isEmpty()) {
+            status = Status.NEW;
+        } else if (runs.size() < MIN_RUNS) {
+            status = Status.LEARNING;
+        } else {
+            double sigma = Math.max(MAD_SCALE * mad, MIN_NOISE * median);
+            boolean significant = (currentMs - median) / sigma > THRESHOLD;
+            status = significant && currentMs - median >= MIN_DELTA_MS ? Status.REGRESSION : Status.OK;
+        }
+        return new Verdict(step, currentMs, median, mad, runs.size(), budget, status);
+    }
+
+    /**
+     * Add one run's median per step to the baseline file, keeping the last
+     * perf.baselineRuns runs of each step. Shards of one run share the run id
+     * and merge into one entry. The file is locked while it is rewritten, so
+     * parallel JVMs can update it safely.
+     */
+    public static void append(Path file, String runId, Map<String, Double> medians,
+                              Map<String, Integer> samples) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path lockFile = absolute.resolveSibling(absolute.getFileName() + ".lock");
+        FileLocks.run(lockFile, () -> {
+            Map<String, List<Map<String, Object>>> history = read(absolute);
+            for (Map.Entry<String, Double> step : medians.entrySet()) {
+                List<Map<String, Object>> runs = history.computeIfAbsent(step.getKey(), unused -> new ArrayList<>());
+                int count = samples.getOrDefault(step.getKey(), 1);
+                Map<String, Object> last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+                if (last != null && runId.equals(last.get("run"))) {
+                    // Another shard of this run measured the same step: weight the medians by sample count
+                    int lastCount = ((Number) last.get("samples")).intValue();
+                    double ms = ((Number) last.get("ms")).doubleValue();
+                    last.put("ms", round((ms * lastCount + step.getValue() * count) / (lastCount + count)));
+                    last.put("samples", lastCount + count);
+                } else {
+                    Map<String, Object> run = new LinkedHashMap<>();
+                    run.put("run", runId);
+                    run.put("ms", round(step.getValue()));
+                    run.put("samples", count);
+                    runs.add(run);
+                }
+                while (runs.size() > KEEP_RUNS) {
+                    runs.remove(0);
+                }
+            }
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("steps", history);
+            // Write then move, so a reader never sees a half-written baseline
+            Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            Files.write(temp, new Json().toJson(json).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<Map<String, Object>>> read(Path file) throws IOException {
+        Map<String, List<Map<String, Object>>> history = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return history;
+        }
+        Map<String, Object> json = new Json().toType(
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.MAP_TYPE);
+        Object steps = json.get("steps");
+        if (steps instanceof Map) {
+            ((Map<String, Object>) steps).forEach((step, runs) -> {
+                List<Map<String, Object>> copy = new ArrayList<>();
+                for (Object run : (List<Object>) runs) {
+                    copy.add(new LinkedHashMap<>((Map<String, Object>) run));
+                }
+                history.put(step, copy);
+            });
+        }
+        return history;
+    }
+
+    public static double median(List<Double> values) {
+        List<Double> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+
+    // Median absolute deviation from the median
+    public static double mad(List<Double> values, double median) {
+        List<Double> deviations = new ArrayList<>();
+        for (double value : values) {
+            deviations.add(Math.abs(value - median));
+        }
+        return median(deviations);
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 10) / 10.0;
+    }
+
+    public static final class Verdict {
+        private final String step;
+        private final double currentMs;
+        private final double medianMs;
+        private final double madMs;
+        private final int runs;
+        private final Double budgetMs;
+        private final Status status;
+
+        Verdict(String step, double currentMs, double medianMs, double madMs, int runs, Double budgetMs, Status status) {
+            this.step = step;
+            this.currentMs = currentMs;
+            this.medianMs = medianMs;
+            this.madMs = madMs;
+            this.runs = runs;
+            this.budgetMs = budgetMs;
+            this.status = status;
+        }
+
+        public String getStep() {
+            return step;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isFailure() {
+            return status == Status.REGRESSION || status == Status.OVER_BUDGET;
+        }
+
+        // Change against the baseline median in percent, or NaN without history
+        public double getDeltaPercent() {
+            return Double.isNaN(medianMs) || medianMs == 0 ? Double.NaN : (currentMs - medianMs) * 100 / medianMs;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("step", step);
+            row.put("status", status.name());
+            row.put("currentMs", round(currentMs));
+            row.put("baselineMs", Double.isNaN(medianMs) ? null : round(medianMs));
+            row.put("madMs", Double.isNaN(madMs) ? null : round(madMs));
+            row.put("deltaPct", Double.isNaN(getDeltaPercent()) ? null : round(getDeltaPercent()));
+            row.put("baselineRuns", runs);
+            row.put("budgetMs", budgetMs);
+            return row;
+        }
+
+        @Override
+        public String toString() {
+            String baseline = Double.isNaN(medianMs) ? "no baseline"
+                    : String.format("baseline %.0f ms ± %.0f, %+.0f%%", medianMs, MAD_SCALE * madMs, getDeltaPercent());
+            String budget = budgetMs == null ? "" : String.format(", budget %.0f ms", budgetMs);
+            return String.format("%s %s: %.0f ms (%s%s)", status, step, currentMs, baseline, budget);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.json.Json;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+/**
+ * Performance gate: compares the duration of every test method and every
+ * page-object method it calls against per-step budgets and a rolling baseline
+ * of earlier runs (see PerformanceBaseline). Page-object durations are the
+ * "page" spans of the trace timeline, so they need trace.enabled.
+ *
+ * At suite end the run's median per step is compared again and written to
+ * <report.dir>/PerformanceBudget_<millis>.json and .csv, slowest change first,
+ * and appended to the baseline. Only tests that pass, including the gate
+ * itself, feed the baseline: with perf.gate=fail a regressed test's timings
+ * are left out, so the regression can't become the new normal. With
+ * perf.gate=report a flagged slowdown still passes and is learned.
+ *
+ * Configured with system properties:
+ *   perf.gate            - "report" (default) flags regressions, "fail" also fails the test, "off" disables
+ *   perf.baselineFile    - baseline history (default test-reports/perf-baseline.json)
+ *   perf.budgetsFile     - step=ms budgets (default testdata/perf-budgets.properties)
+ *   perf.updateBaseline  - add this run to the baseline (default true)
+ *   perf.runId           - run id in the baseline; shards of one run share it (default: start time)
+ */
+public class PerformanceBudgetListener implements IInvokedMethodListener, ISuiteListener {
+
+    private static final String GATE = System.getProperty("perf.gate", "report").toLowerCase();
+    private static final Path BASELINE_FILE = Paths.get(
+            System.getProperty("perf.baselineFile", "test-reports/perf-baseline.json"));
+    private static final Path BUDGETS_FILE = Paths.get(
+            System.getProperty("perf.budgetsFile", "testdata/perf-budgets.properties"));
+    private static final String START_ATTRIBUTE = "perf.startNanos";
+
+    private final String runId = System.getProperty("perf.runId", String.valueOf(System.currentTimeMillis()));
+    // Page-object spans of the test method running on each thread: step -> durations in ms
+    private final ThreadLocal<Map<String, List<Double>>> pageSamples = ThreadLocal.withInitial(HashMap::new);
+    // Every sample of this run from passed tests, for the suite-end report and the baseline
+    private final Map<String, List<Double>> runSamples = new ConcurrentHashMap<>();
+    private final List<PerformanceBaseline.Verdict> flagged = Collections.synchronizedList(new ArrayList<>());
+    private volatile PerformanceBaseline baseline;
+
+    public PerformanceBudgetListener() {
+        if (isEnabled()) {
+            TraceRecorder.getInstance().addSpanListener((name, category, durationNanos) -> {
+                if ("page".equals(category)) {
+                    pageSamples.get().computeIfAbsent("page." + name, unused -> new ArrayList<>())
+                            .add(durationNanos / 1_000_000.0);
+                }
+            });
+        }
+    }
+
+    private static boolean isEnabled() {
+        return !"off".equals(GATE);
+    }
+
+    @Override
+    public void onStart(ISuite suite) {
+        baseline();
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!isEnabled() || !method.isTestMethod()) {
+            return;
+        }
+        // Spans from configuration methods don't belong to the test
+        pageSamples.get().clear();
+        testResult.setAttribute(START_ATTRIBUTE, System.nanoTime());
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        Object start = testResult.getAttribute(START_ATTRIBUTE);
+        if (!isEnabled() || !method.isTestMethod() || !(start instanceof Long)) {
+            return;
+        }
+        testResult.removeAttribute(START_ATTRIBUTE);
+        double testMs = (System.nanoTime() - (Long) start) / 1_000_000.0;
+        // Close page spans still open so this test's last page method is measured too
+        TraceRecorder.getInstance().closePageFrames();
+
+        Map<String, List<Double>> samples = new LinkedHashMap<>();
+        samples.put("test." + method.getTestMethod().getRealClass().getSimpleName() + "."
+                + method.getTestMethod().getMethodName(), Collections.singletonList(testMs));
+        samples.putAll(pageSamples.get());
+        pageSamples.get().clear();
+        if (testResult.getStatus() != ITestResult.SUCCESS) {
+            return;
+        }
+
+        List<PerformanceBaseline.Verdict> failures = new ArrayList<>();
+        for (Map.Entry<String, List<Double>> step : samples.entrySet()) {
+            PerformanceBaseline.Verdict verdict = baseline().evaluate(step.getKey(),
+                    PerformanceBaseline.median(step.getValue()));
+            if (verdict.isFailure()) {
+                failures.add(verdict);
+            }
+        }
+        if (failures.isEmpty() || !"fail".equals(GATE)) {
+            // Only tests that still pass after the gate feed the baseline, so a failed regression never becomes normal
+            addRunSamples(samples);
+        }
+        if (failures.isEmpty()) {
+            return;
+        }
+        flagged.addAll(failures);
+        StringBuilder message = new StringBuilder("Performance regression in " + testResult.getName() + ":");
+        for (PerformanceBaseline.Verdict verdict : failures) {
+            message.append("\n  ").append(verdict);
+        }
+        System.out.println("Warning: " + message);
+        if ("fail".equals(GATE)) {
+            testResult.setStatus(ITestResult.FAILURE);
+            testResult.setThrowable(new AssertionError(message.toString()));
+        }
+    }
+
+    private void addRunSamples(Map<String, List<Double>> samples) {
+        samples.forEach((step, durations) -> runSamples
+                .computeIfAbsent(step, unused -> Collections.synchronizedList(new ArrayList<>()))
+                .addAll(durations));
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (!isEnabled() || runSamples.isEmpty()) {
+            return;
+        }
+        Map<String, Double> medians = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        List<PerformanceBaseline.Verdict> verdicts = new ArrayList<>();
+        runSamples.forEach((step, samples) -> {
+            List<Double> copy;
+            synchronized (samples) {
+                copy = new ArrayList<>(samples);
+            }
+            double median = PerformanceBaseline.median(copy);
+            medians.put(step, median);
+            counts.put(step, copy.size());
+            verdicts.add(baseline().evaluate(step, median));
+        });
+        // Biggest slowdowns first; steps without history last
+        verdicts.sort((a, b) -> Double.compare(
+                Double.isNaN(b.getDeltaPercent()) ? Double.NEGATIVE_INFINITY : b.getDeltaPercent(),
+                Double.isNaN(a.getDeltaPercent()) ? Double.NEGATIVE_INFINITY : a.getDeltaPercent()));
+        export(verdicts, new File(Constants.REPORT_DIR), "PerformanceBudget_" + System.currentTimeMillis());
+
+        long failing = verdicts.stream().filter(PerformanceBaseline.Verdict::isFailure).count();
+        System.out.println((failing == 0 ? "✓ " : "Warning: ") + "Performance gate: " + verdicts.size()
+                + " steps, " + failing + " over budget or regressed (" + flagged.size() + " flagged per test)");
+        verdicts.stream().filter(PerformanceBaseline.Verdict::isFailure)
+                .forEach(verdict -> System.out.println("  " + verdict));
+
+        if (Boolean.parseBoolean(System.getProperty("perf.updateBaseline", "true"))) {
+            try {
+                PerformanceBaseline.append(BASELINE_FILE, runId, medians, counts);
+            } catch (IOException e) {
+                System.err.println("Failed to update performance baseline: " + e.getMessage());
+            }
+        }
+    }
+
+    private PerformanceBaseline baseline() {
+        if (baseline == null) {
+            synchronized (this) {
+                if (baseline == null) {
+                    baseline = loadBaseline();
+                }
+            }
+        }
+        return baseline;
+    }
+
+    private static PerformanceBaseline loadBaseline() {
+        Map<String, Double> budgets = Collections.emptyMap();
+        try {
+            budgets = PerformanceBaseline.loadBudgets(BUDGETS_FILE);
+            return PerformanceBaseline.load(BASELINE_FILE, budgets);
+        } catch (IOException | RuntimeException e) {
+            // Budgets still apply; every step is judged as new
+            System.err.println("Failed to read performance baseline: " + e.getMessage());
+            return PerformanceBaseline.empty(budgets);
+        }
+    }
+
+    private static void export(List<PerformanceBaseline.Verdict> verdicts, File directory, String baseName) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (PerformanceBaseline.Verdict verdict : verdicts) {
+            rows.add(verdict.toMap());
+        }
+        try {
+            directory.mkdirs();
+            File jsonFile = new File(directory, baseName + ".json");
+            try (PrintWriter out = new PrintWriter(jsonFile, StandardCharsets.UTF_8)) {
+                out.print(new Json().toJson(rows));
+            }
+            File csvFile = new File(directory, baseName + ".csv");
+            try (PrintWriter out = new PrintWriter(csvFile, StandardCharsets.UTF_8)) {
+                out.println(String.join(",", rows.get(0).keySet()));
+                for (Map<String, Object> row : rows) {
+                    List<String> cells = new ArrayList<>();
+                    for (Object value : row.values()) {
+                        cells.add(value == null ? "" : String.valueOf(value).replace(",", ";"));
+                    }
+                    out.println(String.join(",", cells));
+                }
+            }
+            System.out.println("✓ Performance report saved: " + jsonFile.getPath() + ", " + csvFile.getName());
+        } catch (IOException e) {
+            System.err.println("Failed to save performance report: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+/**
+ * Append-only history of cart price validations across runs, kept in three
+ * compact files instead of one workbook per run:
+ *   validations.bin  one 48-byte record per validation: run, time, calculated and
+ *                    website totals in cents, duration, line count, match, imported
+ *   lines.bin        one 32-byte record per cart line: run, time, price in cents,
+ *                    product, quantity
+ *   products.txt     product names; the line number is the product id in lines.bin
+ *
+ * Records are fixed width and only ever appended, under a file lock so shards
+ * can share one history. Queries memory-map a file and scan it: thousands of
+ * runs are a few hundred kilobytes and are read in milliseconds. A torn record
+ * or product name at the end of a file (a crash mid-write) is ignored by
+ * queries and cut off by the next append, so later records stay aligned.
+ *
+ * Configured with system properties:
+ *   report.history     - append validations to the history (default true)
+ *   report.historyDir  - directory of the history files (default test-reports/history)
+ *
+ * From the command line (test classpath):
+ *   java utils.RunHistory export trends.xlsx|trends.csv  - trend report
+ *   java utils.RunHistory import test-reports            - load old CartPriceValidation_*.xlsx reports
+ */
+public class RunHistory {
+
+    private static final int VALIDATION_BYTES = 48;
+    private static final int LINE_BYTES = 32;
+    private static final String VALIDATIONS_FILE = "validations.bin";
+    private static final String LINES_FILE = "lines.bin";
+    private static final String PRODUCTS_FILE = "products.txt";
+    private static final long RUN_ID = System.currentTimeMillis();
+    private static final Pattern LEGACY_REPORT = Pattern.compile("CartPriceValidation_(\\d+)\\.xlsx");
+    private static final DateTimeFormatter LEGACY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static RunHistory defaultHistory;
+
+    private final Path directory;
+    private final List<String> products = new ArrayList<>();
+    private final Map<String, Integer> productIds = new HashMap<>();
+
+    public RunHistory(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        refreshProducts();
+    }
+
+    // Shared history in report.historyDir, or null when -Dreport.history=false or it can't be opened
+    public static synchronized RunHistory getDefault() {
+        if (defaultHistory == null && Boolean.parseBoolean(System.getProperty("report.history", "true"))) {
+            try {
+                // Not under report.dir: shards of a sharded run write into the same history
+                defaultHistory = new RunHistory(Paths.get(System.getProperty("report.historyDir", "test-reports/history")));
+            } catch (IOException e) {
+                System.err.println("Failed to open run history: " + e.getMessage());
+            }
+        }
+        return defaultHistory;
+    }
+
+    // Append one validated cart of this run: its lines, totals, duration (-1 if unknown) and outcome
+    public void recordValidation(List<String> productNames, List<Long> priceCents, List<Integer> quantities,
+                                 long calculatedCents, long websiteCents, long durationMillis) throws IOException {
+        append(RUN_ID, System.currentTimeMillis(), productNames, priceCents, quantities,
+                calculatedCents, websiteCents, durationMillis, false);
+    }
+
+    private synchronized void append(long runId, long timestamp, List<String> productNames, List<Long> priceCents,
+                                     List<Integer> quantities, long calculatedCents, long websiteCents,
+                                     long durationMillis, boolean imported) throws IOException {
+        FileLocks.run(directory.resolve(PRODUCTS_FILE + ".lock"), () -> {
+            // Another process may have added products since we last looked
+            dropPartialProduct();
+            refreshProducts();
+            ByteBuffer lines = ByteBuffer.allocate(LINE_BYTES * priceCents.size());
+            for (int i = 0; i < priceCents.size(); i++) {
+                lines.putLong(runId).putLong(timestamp).putLong(priceCents.get(i))
+                        .putInt(productId(productNames.get(i))).putInt(quantities.get(i));
+            }
+            ByteBuffer validation = ByteBuffer.allocate(VALIDATION_BYTES);
+            validation.putLong(runId).putLong(timestamp).putLong(calculatedCents).putLong(websiteCents)
+                    .putLong(durationMillis).putInt(priceCents.size())
+                    .put((byte) (calculatedCents == websiteCents ? 1 : 0)).put((byte) (imported ? 1 : 0));
+            // Lines first: a validation record is only ever read after all of its lines exist
+            write(LINES_FILE, lines, LINE_BYTES);
+            write(VALIDATIONS_FILE, validation, VALIDATION_BYTES);
+        });
+    }
+
+    private void write(String fileName, ByteBuffer buffer, int recordBytes) throws IOException {
+        // The whole buffer, padding included, so records stay fixed width
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(directory.resolve(fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Cut a torn record off first, or every later record would be misaligned
+            long size = channel.size();
+            long complete = size - size % recordBytes;
+            if (complete != size) {
+                System.out.println("Warning: dropping a partial record at the end of " + fileName);
+                channel.truncate(complete);
+            }
+            channel.position(complete);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private int productId(String name) throws IOException {
+        // Product names are single lines in the dictionary
+        String clean = name.replace('\n', ' ').replace('\r', ' ');
+        Integer id = productIds.get(clean);
+        if (id == null) {
+            id = products.size();
+            Files.write(directory.resolve(PRODUCTS_FILE), (clean + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            products.add(clean);
+            productIds.put(clean, id);
+        }
+        return id;
+    }
+
+    private void refreshProducts() throws IOException {
+        Path file = directory.resolve(PRODUCTS_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        // Only complete lines: a name without its newline is still being written, or was torn
+        byte[] bytes = Files.readAllBytes(file);
+        int complete = completeLength(bytes);
+        if (complete == 0) {
+            return;
+        }
+        String[] all = new String(bytes, 0, complete - 1, StandardCharsets.UTF_8).split("\n", -1);
+        for (int i = products.size(); i < all.length; i++) {
+            products.add(all[i]);
+            productIds.put(all[i], i);
+        }
+    }
+
+    // Under the append lock: cut a torn last name so the next one starts on its own line
+    private void dropPartialProduct() throws IOException {
+        Path file = directory.resolve(PRODUCTS_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        int complete = completeLength(bytes);
+        if (complete != bytes.length) {
+            System.out.println("Warning: dropping a partial product name at the end of " + PRODUCTS_FILE);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(complete);
+            }
+        }
+    }
+
+    // Length up to and including the last newline
+    private static int completeLength(byte[] bytes) {
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        return end;
+    }
+
+    // Every validation, oldest first
+    public List<Validation> validations() throws IOException {
+        List<Validation> validations = new ArrayList<>();
+        ByteBuffer records = map(VALIDATIONS_FILE, VALIDATION_BYTES);
+        while (records.remaining() >= VALIDATION_BYTES) {
+            int start = records.position();
+            validations.add(new Validation(records.getLong(), records.getLong(), records.getLong(),
+                    records.getLong(), records.getLong(), records.getInt(), records.get() == 1, records.get() == 1));
+            records.position(start + VALIDATION_BYTES);
+        }
+        return validations;
+    }
+
+    // Share of validations between the two times (epoch millis, inclusive) whose totals matched
+    public double matchRate(long fromMillis, long toMillis) throws IOException {
+        ByteBuffer records = map(VALIDATIONS_FILE, VALIDATION_BYTES);
+        int total = 0;
+        int matched = 0;
+        for (int at = 0; at + VALIDATION_BYTES <= records.limit(); at += VALIDATION_BYTES) {
+            long timestamp = records.getLong(at + 8);
+            if (timestamp >= fromMillis && timestamp <= toMillis) {
+                total++;
+                matched += records.get(at + 44);
+            }
+        }
+        return total == 0 ? Double.NaN : (double) matched / total;
+    }
+
+    // Price history per product, in product order; lines of imported runs are left out
+    public synchronized Map<String, PriceDrift> priceDrift() throws IOException {
+        refreshProducts();
+        Set<Long> importedRuns = new HashSet<>();
+        ByteBuffer validations = map(VALIDATIONS_FILE, VALIDATION_BYTES);
+        for (int at = 0; at + VALIDATION_BYTES <= validations.limit(); at += VALIDATION_BYTES) {
+            if (validations.get(at + 45) == 1) {
+                importedRuns.add(validations.getLong(at));
+            }
+        }
+        PriceDrift[] byId = new PriceDrift[products.size()];
+        ByteBuffer records = map(LINES_FILE, LINE_BYTES);
+        for (int at = 0; at + LINE_BYTES <= records.limit(); at += LINE_BYTES) {
+            int product = records.getInt(at + 24);
+            if (product < 0 || product >= byId.length || importedRuns.contains(records.getLong(at))) {
+                continue;
+            }
+            if (byId[product] == null) {
+                byId[product] = new PriceDrift(products.get(product));
+            }
+            byId[product].add(records.getLong(at + 8), records.getLong(at + 16));
+        }
+        Map<String, PriceDrift> drift = new LinkedHashMap<>();
+        for (PriceDrift product : byId) {
+            if (product != null) {
+                drift.put(product.getProduct(), product);
+            }
+        }
+        return drift;
+    }
+
+    // Whole records only; the mapping is released once the buffer is garbage collected
+    private ByteBuffer map(String fileName, int recordBytes) throws IOException {
+        Path file = directory.resolve(fileName);
+        if (!Files.exists(file)) {
+            return ByteBuffer.allocate(0);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size() - channel.size() % recordBytes;
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    // Write every validation and the price drift per product as two CSV sections
+    public void exportCsv(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        try (PrintWriter out = new PrintWriter(file.toFile(), StandardCharsets.UTF_8)) {
+            out.println("run,timestamp,calculatedCents,websiteCents,durationMs,lines,match");
+            for (Validation v : validations()) {
+                out.println(v.getRunId() + "," + v.getTimestamp() + "," + v.getCalculatedCents() + ","
+                        + v.getWebsiteCents() + "," + v.getDurationMillis() + "," + v.getLineCount() + ","
+                        + (v.isMatch() ? "YES" : "NO"));
+            }
+            out.println();
+            out.println("product,observations,firstCents,lastCents,minCents,maxCents,priceChanges");
+            for (PriceDrift drift : priceDrift().values()) {
+                out.println("\"" + drift.getProduct().replace("\"", "\"\"") + "\"," + drift.getObservations() + ","
+                        + drift.getFirstCents() + "," + drift.getLastCents() + "," + drift.getMinCents() + ","
+                        + drift.getMaxCents() + "," + drift.getPriceChanges());
+            }
+        }
+        System.out.println("✓ Run history exported: " + file);
+    }
+
+    /**
+     * Load CartPriceValidation_<millis>.xlsx reports written before the
+     * history existed. Each workbook becomes one validation with its run id
+     * taken from the file name; runs already in the history are skipped.
+     * Their cart lines are named "Item 1", "Item 2", ... as in the workbook.
+     * Those are positions in one cart, not products, so imported runs are
+     * flagged and their lines are left out of the price drift.
+     */
+    public int importWorkbooks(File reportDirectory) throws IOException {
+        Set<Long> known = new HashSet<>();
+        for (Validation validation : validations()) {
+            known.add(validation.getRunId());
+        }
+        File[] reports = reportDirectory.listFiles((dir, name) -> LEGACY_REPORT.matcher(name).matches());
+        if (reports == null) {
+            return 0;
+        }
+        Arrays.sort(reports);
+        int imported = 0;
+        for (File report : reports) {
+            Matcher matcher = LEGACY_REPORT.matcher(report.getName());
+            matcher.matches();
+            long runId = Long.parseLong(matcher.group(1));
+            if (known.contains(runId) || !importWorkbook(report, runId)) {
+                continue;
+            }
+            imported++;
+        }
+        System.out.println("✓ Imported " + imported + " of " + reports.length + " Excel report(s) into the run history");
+        return imported;
+    }
+
+    private boolean importWorkbook(File report, long runId) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<Long> prices = new ArrayList<>();
+        List<Integer> quantities = new ArrayList<>();
+        try (Workbook workbook = WorkbookFactory.create(report, null, true)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (Row row : sheet) {
+                String label = text(row.getCell(0));
+                if (label.matches("Item \\d+")) {
+                    names.add(label);
+                    prices.add(cents(row.getCell(1)));
+                    quantities.add((int) row.getCell(2).getNumericCellValue());
+                } else if ("TOTAL".equals(label)) {
+                    long timestamp = runId;
+                    String time = text(row.getCell(7));
+                    if (!time.isEmpty()) {
+                        timestamp = LocalDateTime.parse(time, LEGACY_TIMESTAMP)
+                                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    }
+                    append(runId, timestamp, names, prices, quantities,
+                            cents(row.getCell(4)), cents(row.getCell(5)), -1, true);
+                    return true;
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Warning: skipping unreadable report " + report.getName() + " - " + e.getMessage());
+        }
+        return false;
+    }
+
+    private static String text(Cell cell) {
+        return cell == null || cell.getCellType() != CellType.STRING ? "" : cell.getStringCellValue().trim();
+    }
+
+    private static long cents(Cell cell) {
+        return Math.round(cell.getNumericCellValue() * 100);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 || !("export".equals(args[0]) || "import".equals(args[0]))) {
+            System.err.println("Usage: RunHistory export <file.xlsx|file.csv> | import <report directory>");
+            System.exit(2);
+        }
+        RunHistory history = getDefault();
+        if (history == null) {
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        if ("import".equals(args[0])) {
+            history.importWorkbooks(new File(args[1]));
+        } else if (args[1].endsWith(".csv")) {
+            history.exportCsv(Paths.get(args[1]));
+        } else {
+            ExcelReporter.exportHistory(history, args[1]);
+        }
+        System.out.println("✓ Done in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    public static final class Validation {
+        private final long runId;
+        private final long timestamp;
+        private final long calculatedCents;
+        private final long websiteCents;
+        private final long durationMillis;
+        private final int lineCount;
+        private final boolean match;
+        private final boolean imported;
+
+        Validation(long runId, long timestamp, long calculatedCents, long websiteCents,
+                   long durationMillis, int lineCount, boolean match, boolean imported) {
+            this.runId = runId;
+            this.timestamp = timestamp;
+            this.calculatedCents = calculatedCents;
+            this.websiteCents = websiteCents;
+            this.durationMillis = durationMillis;
+            this.lineCount = lineCount;
+            this.match = match;
+            this.imported = imported;
+        }
+
+        public long getRunId() {
+            return runId;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getCalculatedCents() {
+            return calculatedCents;
+        }
+
+        public long getWebsiteCents() {
+            return websiteCents;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public int getLineCount() {
+            return lineCount;
+        }
+
+        public boolean isMatch() {
+            return match;
+        }
+
+        // Loaded from an old Excel report rather than recorded by a test run
+        public boolean isImported() {
+            return imported;
+        }
+    }
+
+    // Prices seen for one product, in the order they were recorded
+    public static final class PriceDrift {
+        private final String product;
+        private int observations;
+        private long firstCents;
+        private long lastCents;
+        private long minCents = Long.MAX_VALUE;
+        private long maxCents = Long.MIN_VALUE;
+        private long firstSeen;
+        private long lastSeen;
+        private int priceChanges;
+
+        PriceDrift(String product) {
+            this.product = product;
+        }
+
+        void add(long timestamp, long cents) {
+            if (observations == 0) {
+                firstCents = cents;
+                firstSeen = timestamp;
+            } else if (cents != lastCents) {
+                priceChanges++;
+            }
+            observations++;
+            lastCents = cents;
+            lastSeen = timestamp;
+            minCents = Math.min(minCents, cents);
+            maxCents = Math.max(maxCents, cents);
+        }
+
+        public String getProduct() {
+            return product;
+        }
+
+        public int getObservations() {
+            return observations;
+        }
+
+        public long getFirstCents() {
+            return firstCents;
+        }
+
+        public long getLastCents() {
+            return lastCents;
+        }
+
+        public long getMinCents() {
+            return minCents;
+        }
+
+        public long getMaxCents() {
+            return maxCents;
+        }
+
+        public long getFirstSeen() {
+            return firstSeen;
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+
+        public int getPriceChanges() {
+            return priceChanges;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package utils;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Writes screenshots on background threads so the test thread only pays for
+ * the capture itself. Captured PNG bytes go onto a bounded queue; when the
+ * queue is full the capturing thread writes the image itself, which bounds
+ * memory without dropping screenshots.
+ *
+ * By default screenshots go into a ScreenshotStore in the output directory,
+ * which keeps each distinct image once; repeated and noise-only captures add
+ * an index line instead of a file. -Dscreenshot.store=false writes one file
+ * per capture as before.
+ *
+ * Configured with system properties:
+ *   screenshot.dir          - output directory (default "screenshots")
+ *   screenshot.store        - deduplicate through the screenshot store (default true)
+ *   screenshot.noiseLevel   - luminance difference per 32x32 grid cell treated as noise (default 2)
+ *   screenshot.hashDistance - dHash bits two noise-only captures may differ by (default 6)
+ *   screenshot.scale        - downscale factor in (0, 1] (default 1, no resize)
+ *   screenshot.format       - "png" keeps the original bytes, "jpg" recompresses (default png)
+ *   screenshot.quality      - JPEG quality in (0, 1] (default 0.85)
+ *   screenshot.queue        - pending screenshots before back-pressure (default 16)
+ *   screenshot.threads      - writer threads (default 2)
+ */
+public class ScreenshotService {
+
+    private static final ScreenshotService INSTANCE = new ScreenshotService();
+
+    private final File directory = new File(System.getProperty("screenshot.dir", "screenshots"));
+    private final double scale = Double.parseDouble(System.getProperty("screenshot.scale", "1"));
+    private final String format = System.getProperty("screenshot.format", "png").toLowerCase();
+    private final float quality = Float.parseFloat(System.getProperty("screenshot.quality", "0.85"));
+
+    // Null when writing one file per capture
+    private final ScreenshotStore store;
+    private final ThreadPoolExecutor writers;
+    // Writes queued but not finished, for flush()
+    private final Object pendingLock = new Object();
+    private int pending;
+
+    private ScreenshotService() {
+        store = isStoreEnabled() ? openStore() : null;
+        int threads = Integer.getInteger("screenshot.threads", 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        writers = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Integer.getInteger("screenshot.queue", 16)),
+                task -> {
+                    Thread thread = new Thread(task, "screenshot-writer-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        writers.allowCoreThreadTimeOut(true);
+        // Safety net in case a run ends without calling flush()
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(30), "screenshot-flush"));
+    }
+
+    public static ScreenshotService getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isStoreEnabled() {
+        return Boolean.parseBoolean(System.getProperty("screenshot.store", "true"));
+    }
+
+    private ScreenshotStore openStore() {
+        try {
+            return new ScreenshotStore(directory.toPath(),
+                    Double.parseDouble(System.getProperty("screenshot.noiseLevel", "2")),
+                    Integer.getInteger("screenshot.hashDistance", 6));
+        } catch (IOException e) {
+            System.out.println("Warning: screenshot store unavailable, writing plain files - " + e.getMessage());
+            return null;
+        }
+    }
+
+    // The store screenshots go to, or null with -Dscreenshot.store=false
+    public ScreenshotStore getStore() {
+        return store;
+    }
+
+    /**
+     * Queue captured PNG bytes for writing and return immediately.
+     *
+     * @return the file the screenshot will be written to, or null when it goes
+     *         to the store (look it up with getStore().find(name) after flush())
+     */
+    public File save(byte[] png, String fileName) {
+        String name = withExtension(fileName);
+        File destFile = store == null ? new File(directory, name) : null;
+        synchronized (pendingLock) {
+            pending++;
+        }
+        writers.execute(() -> {
+            try {
+                byte[] encoded = encode(png);
+                if (store == null) {
+                    Files.createDirectories(directory.toPath());
+                    Files.write(destFile.toPath(), encoded);
+                    System.out.println("✓ Screenshot saved: " + name);
+                } else {
+                    ScreenshotStore.Capture capture = store.put(name, encoded);
+                    System.out.println("✓ Screenshot stored: " + name + " (" + describe(capture) + ")");
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to save screenshot " + name + ": " + e.getMessage());
+            } finally {
+                synchronized (pendingLock) {
+                    pending--;
+                    pendingLock.notifyAll();
+                }
+            }
+        });
+        return destFile;
+    }
+
+    // Block until every queued screenshot has been written
+    public boolean flush(long timeoutSeconds) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        synchronized (pendingLock) {
+            while (pending > 0) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    System.err.println("Timed out waiting for " + pending + " screenshot(s) to be written");
+                    return false;
+                }
+                try {
+                    pendingLock.wait(remainingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String describe(ScreenshotStore.Capture capture) {
+        switch (capture.getMatch()) {
+            case EXACT:
+                return "already stored";
+            case PERCEPTUAL:
+                return "same as " + capture.getHash().substring(0, 12) + " apart from pixel noise";
+            default:
+                return "new image " + capture.getHash().substring(0, 12);
+        }
+    }
+
+    // The bytes to keep: the driver's PNG as-is, or scaled / recompressed
+    private byte[] encode(byte[] png) throws IOException {
+        if (scale >= 1 && "png".equals(format)) {
+            // Nothing to transform, keep the driver's encoding as-is
+            return png;
+        }
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        if (image == null) {
+            throw new IOException("Screenshot bytes are not a readable image");
+        }
+        if (scale < 1) {
+            image = downscale(image);
+        }
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        if ("jpg".equals(format) || "jpeg".equals(format)) {
+            writeJpeg(image, encoded);
+        } else {
+            ImageIO.write(image, format, encoded);
+        }
+        return encoded.toByteArray();
+    }
+
+    private BufferedImage downscale(BufferedImage source) {
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(source, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    private void writeJpeg(BufferedImage image, ByteArrayOutputStream destination) throws IOException {
+        if (image.getColorModel().hasAlpha()) {
+            // JPEG has no alpha channel
+            BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = rgb.createGraphics();
+            graphics.drawImage(image, 0, 0, null);
+            graphics.dispose();
+            image = rgb;
+        }
+        Iterator<ImageWriter> jpegWriters = ImageIO.getImageWritersByFormatName("jpg");
+        ImageWriter writer = jpegWriters.next();
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(destination)) {
+            writer.setOutput(output);
+            ImageWriteParam params = writer.getDefaultWriteParam();
+            params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            params.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), params);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private String withExtension(String fileName) {
+        if ("png".equals(format)) {
+            return fileName;
+        }
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return base + "." + ("jpeg".equals(format) ? "jpg" : format);
+    }
+}
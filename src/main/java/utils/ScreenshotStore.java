@@ -0,0 +1,365 @@
+package utils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.openqa.selenium.json.Json;
+
+/**
+ * Content-addressed screenshot store: every distinct image is written once and
+ * each capture is one index line pointing at it.
+ *
+ * Layout of the store directory:
+ *   objects/ab/&lt;sha256&gt;.png  unique images, named by the SHA-256 of their bytes
+ *   objects.jsonl            one line per unique image: hash, size and perceptual fingerprint
+ *   captures.jsonl           one line per capture: time, run, name, image hash and how it matched
+ *
+ * A capture whose bytes are already stored costs one index line. So does one
+ * that differs only by pixel noise: each image has a 64-bit difference hash
+ * (dHash) to find candidates and a 32x32 grid of mean luminance to confirm
+ * them. A capture collapses onto an earlier image only if no grid cell differs
+ * by more than the noise level; a changed price or a moved button shifts its
+ * cells well past that, so it is stored as a new image.
+ *
+ * Index appends and new images are written under a file lock, and each writer
+ * first reads the images other writers added, so several JVMs (e.g. shards)
+ * can share one store.
+ */
+public class ScreenshotStore {
+
+    public enum Match { NEW, EXACT, PERCEPTUAL }
+
+    private static final String OBJECTS_DIR = "objects";
+    private static final String OBJECTS_INDEX = "objects.jsonl";
+    private static final String CAPTURES_INDEX = "captures.jsonl";
+    private static final int GRID = 32;
+    private static final double DHASH_MARGIN = 1.0;
+    private static final long RUN_ID = System.currentTimeMillis();
+
+    private final Path directory;
+    private final double noiseLevel;
+    private final int hashDistance;
+    private final Json json = new Json();
+    private final Map<String, StoredImage> images = new LinkedHashMap<>();
+    // Bytes of objects.jsonl already read, so refreshes only parse what others appended
+    private long indexOffset;
+
+    /**
+     * @param noiseLevel   largest grid-cell luminance difference (0-255) still counted as noise
+     * @param hashDistance largest dHash Hamming distance for a perceptual candidate
+     */
+    public ScreenshotStore(Path directory, double noiseLevel, int hashDistance) throws IOException {
+        this.directory = directory;
+        this.noiseLevel = noiseLevel;
+        this.hashDistance = hashDistance;
+        Files.createDirectories(directory.resolve(OBJECTS_DIR));
+        refresh();
+    }
+
+    /**
+     * Store one capture. Only bytes not seen before are decoded for their
+     * fingerprint, outside the lock, so exact repeats cost a hash and an
+     * index line.
+     */
+    public Capture put(String name, byte[] image) throws IOException {
+        String hash = sha256(image);
+        Fingerprint fingerprint = isStored(hash) ? null : fingerprint(image);
+        return record(name, image, hash, fingerprint);
+    }
+
+    private synchronized boolean isStored(String hash) throws IOException {
+        refresh();
+        return images.containsKey(hash);
+    }
+
+    private synchronized Capture record(String name, byte[] image, String hash, Fingerprint fingerprint)
+            throws IOException {
+        return FileLocks.call(directory.resolve(CAPTURES_INDEX + ".lock"), () -> {
+            refresh();
+            StoredImage stored = images.get(hash);
+            Match match = Match.EXACT;
+            if (stored == null) {
+                stored = findSimilar(fingerprint);
+                match = Match.PERCEPTUAL;
+            }
+            if (stored == null) {
+                stored = new StoredImage(hash, extension(name), image.length, fingerprint);
+                writeObject(stored, image);
+                match = Match.NEW;
+            }
+
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("time", System.currentTimeMillis());
+            line.put("run", RUN_ID);
+            line.put("name", name);
+            line.put("hash", stored.hash);
+            line.put("match", match.name());
+            line.put("bytes", image.length);
+            append(CAPTURES_INDEX, line);
+            return new Capture(name, stored.hash, directory.resolve(stored.relativePath()), match);
+        });
+    }
+
+    // Image file of the most recent capture with this name, or null if there is none
+    @SuppressWarnings("unchecked")
+    public synchronized Path find(String name) throws IOException {
+        Path index = directory.resolve(CAPTURES_INDEX);
+        if (!Files.exists(index)) {
+            return null;
+        }
+        String hash = null;
+        for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> capture = json.toType(line, Json.MAP_TYPE);
+            if (name.equals(capture.get("name"))) {
+                hash = String.valueOf(capture.get("hash"));
+            }
+        }
+        refresh();
+        StoredImage stored = hash == null ? null : images.get(hash);
+        return stored == null ? null : directory.resolve(stored.relativePath());
+    }
+
+    public synchronized int getImageCount() {
+        return images.size();
+    }
+
+    // Closest earlier image within the dHash distance whose luminance grid matches cell by cell
+    private StoredImage findSimilar(Fingerprint candidate) {
+        if (candidate == null) {
+            return null;
+        }
+        StoredImage best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (StoredImage image : images.values()) {
+            Fingerprint stored = image.fingerprint;
+            if (stored == null || stored.width != candidate.width || stored.height != candidate.height) {
+                continue;
+            }
+            int distance = Long.bitCount(stored.dHash ^ candidate.dHash);
+            if (distance <= hashDistance && distance < bestDistance && withinNoise(stored.grid, candidate.grid)) {
+                best = image;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private boolean withinNoise(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (Math.abs((a[i] & 0xff) - (b[i] & 0xff)) > noiseLevel) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeObject(StoredImage image, byte[] bytes) throws IOException {
+        Path file = directory.resolve(image.relativePath());
+        Files.createDirectories(file.getParent());
+        // Write then move, so a reader never sees half an image under its final name
+        Path temp = Files.createTempFile(file.getParent(), image.hash, ".tmp");
+        Files.write(temp, bytes);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("hash", image.hash);
+        line.put("ext", image.extension);
+        line.put("bytes", image.bytes);
+        if (image.fingerprint != null) {
+            line.put("width", image.fingerprint.width);
+            line.put("height", image.fingerprint.height);
+            line.put("dHash", Long.toHexString(image.fingerprint.dHash));
+            line.put("grid", Base64.getEncoder().encodeToString(image.fingerprint.grid));
+        }
+        append(OBJECTS_INDEX, line);
+        images.put(image.hash, image);
+        indexOffset = Files.size(directory.resolve(OBJECTS_INDEX));
+    }
+
+    private void append(String indexFile, Map<String, Object> line) throws IOException {
+        Files.write(directory.resolve(indexFile),
+                (json.toJson(line).replace("\n", "") + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // Read images appended to objects.jsonl since the last refresh
+    private void refresh() throws IOException {
+        Path index = directory.resolve(OBJECTS_INDEX);
+        if (!Files.exists(index) || Files.size(index) <= indexOffset) {
+            return;
+        }
+        byte[] added;
+        try (RandomAccessFile file = new RandomAccessFile(index.toFile(), "r")) {
+            file.seek(indexOffset);
+            added = new byte[(int) (file.length() - indexOffset)];
+            file.readFully(added);
+        }
+        // Only whole lines; a line still being written is read next time
+        int end = new String(added, StandardCharsets.UTF_8).lastIndexOf('\n') + 1;
+        String text = new String(added, StandardCharsets.UTF_8).substring(0, end);
+        indexOffset += text.getBytes(StandardCharsets.UTF_8).length;
+        for (String line : text.split("\n")) {
+            if (!line.isEmpty()) {
+                StoredImage image = StoredImage.fromJson(json.toType(line, Json.MAP_TYPE));
+                images.put(image.hash, image);
+            }
+        }
+    }
+
+    // Perceptual fingerprint of an encoded image, or null if it can't be decoded
+    static Fingerprint fingerprint(byte[] encoded) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(encoded));
+        if (image == null) {
+            return null;
+        }
+        double[] grid = luminanceGrid(image, GRID, GRID);
+        byte[] cells = new byte[grid.length];
+        for (int i = 0; i < grid.length; i++) {
+            cells[i] = (byte) Math.round(grid[i]);
+        }
+        // dHash: 8 rows of 9 cells, one bit per horizontally adjacent pair. Pages are mostly flat
+        // background, so a pair only sets its bit when clearly brighter; otherwise noise flips ties
+        double[] small = luminanceGrid(image, 9, 8);
+        long dHash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                dHash = (dHash << 1) | (small[y * 9 + x] - small[y * 9 + x + 1] > DHASH_MARGIN ? 1 : 0);
+            }
+        }
+        return new Fingerprint(image.getWidth(), image.getHeight(), dHash, cells);
+    }
+
+    // Mean luminance (0-255) of each cell of a columns x rows grid laid over the image
+    private static double[] luminanceGrid(BufferedImage image, int columns, int rows) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] sums = new double[columns * rows];
+        int[] counts = new int[columns * rows];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellRow = (int) ((long) y * rows / height) * columns;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                // Rec. 601 luma
+                double luma = 0.299 * ((rgb >> 16) & 0xff) + 0.587 * ((rgb >> 8) & 0xff) + 0.114 * (rgb & 0xff);
+                int cell = cellRow + (int) ((long) x * columns / width);
+                sums[cell] += luma;
+                counts[cell]++;
+            }
+        }
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] = counts[i] == 0 ? 0 : sums[i] / counts[i];
+        }
+        return sums;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(dot + 1).toLowerCase() : "png";
+    }
+
+    // Where one capture ended up
+    public static final class Capture {
+        private final String name;
+        private final String hash;
+        private final Path file;
+        private final Match match;
+
+        Capture(String name, String hash, Path file, Match match) {
+            this.name = name;
+            this.hash = hash;
+            this.file = file;
+            this.match = match;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public Match getMatch() {
+            return match;
+        }
+    }
+
+    static final class Fingerprint {
+        final int width;
+        final int height;
+        final long dHash;
+        final byte[] grid;
+
+        Fingerprint(int width, int height, long dHash, byte[] grid) {
+            this.width = width;
+            this.height = height;
+            this.dHash = dHash;
+            this.grid = grid;
+        }
+    }
+
+    private static final class StoredImage {
+        final String hash;
+        final String extension;
+        final long bytes;
+        final Fingerprint fingerprint;
+
+        StoredImage(String hash, String extension, long bytes, Fingerprint fingerprint) {
+            this.hash = hash;
+            this.extension = extension;
+            this.bytes = bytes;
+            this.fingerprint = fingerprint;
+        }
+
+        String relativePath() {
+            return OBJECTS_DIR + "/" + hash.substring(0, 2) + "/" + hash + "." + extension;
+        }
+
+        static StoredImage fromJson(Map<String, Object> raw) {
+            Fingerprint fingerprint = null;
+            if (raw.get("grid") != null) {
+                fingerprint = new Fingerprint(((Number) raw.get("width")).intValue(),
+                        ((Number) raw.get("height")).intValue(),
+                        Long.parseUnsignedLong(String.valueOf(raw.get("dHash")), 16),
+                        Base64.getDecoder().decode(String.valueOf(raw.get("grid"))));
+            }
+            return new StoredImage(String.valueOf(raw.get("hash")), String.valueOf(raw.get("ext")),
+                    ((Number) raw.get("bytes")).longValue(), fingerprint);
+        }
+    }
+}
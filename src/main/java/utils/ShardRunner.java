@@ -0,0 +1,355 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.commons.io.FileUtils;
+import org.openqa.selenium.json.Json;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import org.testng.xml.internal.Parser;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Runs a TestNG suite split across several worker JVMs, all driving browsers on
+ * one local Selenium Grid, then merges what the shards produced into one report.
+ *
+ * The classes of the suite are split into shards. Classes that continue each
+ * other's browser state are kept in the same shard, in suite order, by giving
+ * their &lt;test&gt; blocks the same "shard.group" parameter. Each shard runs
+ * with its own report directory under shard.dir; screenshots go to the shared
+ * screenshot store, or to a directory per shard with -Dscreenshot.store=false.
+ * When every shard has finished, the merged results go to &lt;report.dir&gt;/Sharded_&lt;millis&gt;:
+ *   testng-results.xml   - all shard suites, with summed totals
+ *   SuiteReport.xlsx     - every ExcelReporter sheet, prefixed with its shard
+ *   Trace.json           - the shards' trace timelines, one process per shard
+ *   screenshots/, other report files - copied with a shard prefix (plain screenshot files only)
+ *
+ * Run with "mvn verify -Psharded" or directly:
+ *   java -cp &lt;test classpath&gt; utils.ShardRunner [testng.xml]
+ *
+ * Configured with system properties:
+ *   shard.count           - number of worker JVMs (default 2)
+ *   shard.threads         - parallel classes per shard (default 1); each shard pools that many
+ *                           browsers plus one per data-provider thread of the suite
+ *   shard.dir             - working directory for shard output (default target/shards)
+ *   shard.timeoutMinutes  - how long to wait for all shards (default 60)
+ *   grid.url              - use an already running grid instead of starting one
+ * Properties for the tests themselves (driver.*, browser.*, proxy.*, network.*,
+ * report.*, screenshot.*, data.*, checkout.*, state.*, cart.*, trace.*, perf.*,
+ * visual.*)
+ * are passed on to every shard.
+ */
+public class ShardRunner {
+
+    public static final String GROUP_PARAMETER = "shard.group";
+    private static final String[] FORWARDED_PREFIXES = {
+        "driver.", "browser.", "proxy.", "network.", "report.", "screenshot.", "data.", "checkout.", "webdriver.",
+        "state.", "cart.", "trace.", "perf.", "visual."
+    };
+
+    private final int shardCount = Integer.getInteger("shard.count", 2);
+    private final int threadsPerShard = Integer.getInteger("shard.threads", 1);
+    private final File workDir = new File(System.getProperty("shard.dir", "target/shards"));
+    private final long timeoutMinutes = Long.getLong("shard.timeoutMinutes", 60);
+    private final long runStarted = System.currentTimeMillis();
+
+    public static void main(String[] args) throws Exception {
+        String suiteFile = args.length > 0 ? args[0] : "testng.xml";
+        System.exit(new ShardRunner().run(new File(suiteFile)));
+    }
+
+    // Run the suite sharded; returns 0 when every shard passed
+    public int run(File suiteFile) throws Exception {
+        XmlSuite suite = parse(suiteFile);
+        List<XmlSuite> shards = split(suite, shardCount, threadsPerShard);
+        FileUtils.deleteDirectory(workDir);
+        workDir.mkdirs();
+
+        String gridUrl = System.getProperty("grid.url");
+        LocalGrid grid = null;
+        if (gridUrl == null) {
+            grid = LocalGrid.start(shards.size() * browsersPerShard(suite), new File(workDir, "grid.log"));
+            gridUrl = grid.getUrl();
+        }
+
+        int failedShards = 0;
+        try {
+            List<Process> processes = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                processes.add(launch(shards.get(i), shardDir(i), gridUrl));
+            }
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(timeoutMinutes);
+            for (int i = 0; i < processes.size(); i++) {
+                Process process = processes.get(i);
+                long remaining = deadline - System.nanoTime();
+                if (!process.waitFor(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                    process.destroyForcibly();
+                    System.err.println("Shard " + (i + 1) + " timed out after " + timeoutMinutes + " min");
+                    failedShards++;
+                } else if (process.exitValue() != 0) {
+                    System.out.println("Shard " + (i + 1) + " finished with failures (exit " + process.exitValue()
+                            + "), see " + new File(shardDir(i), "output.log").getPath());
+                    failedShards++;
+                } else {
+                    System.out.println("✓ Shard " + (i + 1) + " passed");
+                }
+            }
+        } finally {
+            if (grid != null) {
+                grid.close();
+            }
+        }
+
+        File merged = new File(Constants.REPORT_DIR, "Sharded_" + System.currentTimeMillis());
+        merge(shards.size(), merged);
+        System.out.println((failedShards == 0 ? "✓ " : "") + shards.size() + " shard(s), " + failedShards
+                + " with failures. Merged report: " + merged.getPath());
+        return failedShards == 0 ? 0 : 1;
+    }
+
+    private static XmlSuite parse(File suiteFile) throws IOException {
+        Collection<XmlSuite> suites = new Parser(suiteFile.getPath()).parse();
+        if (suites.size() != 1) {
+            throw new IllegalArgumentException("Expected one suite in " + suiteFile + ", found " + suites.size());
+        }
+        return suites.iterator().next();
+    }
+
+    /**
+     * Split the suite into at most shardCount suites. Classes are assigned in
+     * units: every class of a shard.group, or a single class. Each unit goes to
+     * the shard with the fewest classes so far, and every shard keeps the
+     * original &lt;test&gt; order.
+     */
+    public static List<XmlSuite> split(XmlSuite suite, int shardCount, int threadsPerShard) {
+        Map<String, List<XmlTest>> unitTests = new LinkedHashMap<>();
+        Map<String, List<XmlClass>> unitClasses = new LinkedHashMap<>();
+        for (XmlTest test : suite.getTests()) {
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                String group = test.getParameter(GROUP_PARAMETER);
+                String unit = group != null ? "group:" + group : "class:" + test.getName() + "/" + xmlClass.getName();
+                unitTests.computeIfAbsent(unit, key -> new ArrayList<>()).add(test);
+                unitClasses.computeIfAbsent(unit, key -> new ArrayList<>()).add(xmlClass);
+            }
+        }
+
+        int count = Math.max(1, Math.min(shardCount, unitClasses.size()));
+        List<Map<XmlTest, List<XmlClass>>> assignments = new ArrayList<>();
+        int[] load = new int[count];
+        for (int i = 0; i < count; i++) {
+            assignments.add(new IdentityHashMap<>());
+        }
+        for (String unit : unitClasses.keySet()) {
+            int target = 0;
+            for (int i = 1; i < count; i++) {
+                if (load[i] < load[target]) {
+                    target = i;
+                }
+            }
+            List<XmlTest> tests = unitTests.get(unit);
+            List<XmlClass> classes = unitClasses.get(unit);
+            for (int i = 0; i < classes.size(); i++) {
+                assignments.get(target).computeIfAbsent(tests.get(i), key -> new ArrayList<>()).add(classes.get(i));
+            }
+            load[target] += classes.size();
+        }
+
+        List<XmlSuite> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            XmlSuite shard = new XmlSuite();
+            shard.setName(suite.getName() + " [shard " + (i + 1) + "]");
+            shard.setVerbose(suite.getVerbose());
+            shard.setParallel(suite.getParallel());
+            shard.setThreadCount(threadsPerShard);
+            shard.setDataProviderThreadCount(suite.getDataProviderThreadCount());
+            shard.setParameters(suite.getParameters());
+            shard.setListeners(suite.getListeners());
+            // Walk the original tests so the shard keeps suite order
+            for (XmlTest test : suite.getTests()) {
+                List<XmlClass> classes = assignments.get(i).get(test);
+                if (classes == null) {
+                    continue;
+                }
+                XmlTest shardTest = new XmlTest(shard);
+                shardTest.setName(test.getName());
+                shardTest.setParameters(test.getLocalParameters());
+                List<XmlClass> copies = new ArrayList<>();
+                for (XmlClass xmlClass : classes) {
+                    copies.add(new XmlClass(xmlClass.getName(), false));
+                }
+                shardTest.setXmlClasses(copies);
+            }
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    // Class threads keep their browser; parallel data-provider rows lease extra ones
+    private int browsersPerShard(XmlSuite suite) {
+        return threadsPerShard + suite.getDataProviderThreadCount();
+    }
+
+    private File shardDir(int index) {
+        return new File(workDir, "shard-" + (index + 1));
+    }
+
+    private Process launch(XmlSuite shard, File dir, String gridUrl) throws IOException {
+        dir.mkdirs();
+        File suiteFile = new File(dir, "testng.xml");
+        Files.write(suiteFile.toPath(), shard.toXml().getBytes(StandardCharsets.UTF_8));
+
+        List<String> command = new ArrayList<>();
+        command.add(LocalGrid.javaBinary());
+        for (String name : System.getProperties().stringPropertyNames()) {
+            for (String prefix : FORWARDED_PREFIXES) {
+                if (name.startsWith(prefix)) {
+                    command.add("-D" + name + "=" + System.getProperty(name));
+                    break;
+                }
+            }
+        }
+        command.add("-Dgrid.url=" + gridUrl);
+        // Shards of one run merge into a single baseline entry
+        command.add("-Dperf.runId=" + System.getProperty("perf.runId", String.valueOf(runStarted)));
+        command.add("-Ddriver.pool.size=" + browsersPerShard(shard));
+        command.add("-Dreport.dir=" + new File(dir, "test-reports").getPath());
+        // The screenshot store is safe to share; plain files get a directory per shard
+        if (!ScreenshotService.isStoreEnabled()) {
+            command.add("-Dscreenshot.dir=" + new File(dir, "screenshots").getPath());
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("org.testng.TestNG");
+        command.add("-d");
+        command.add(new File(dir, "testng-output").getPath());
+        command.add(suiteFile.getPath());
+
+        int classes = 0;
+        for (XmlTest test : shard.getTests()) {
+            classes += test.getXmlClasses().size();
+        }
+        System.out.println("✓ Starting " + shard.getName() + ": " + classes + " class(es)");
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(dir, "output.log"))
+                .start();
+    }
+
+    // Combine TestNG results, Excel workbooks, screenshots and other report files of every shard
+    private void merge(int shards, File merged) throws Exception {
+        merged.mkdirs();
+        List<File> results = new ArrayList<>();
+        List<File> traces = new ArrayList<>();
+        Map<String, File> workbooks = new LinkedHashMap<>();
+        for (int i = 0; i < shards; i++) {
+            File dir = shardDir(i);
+            String label = "S" + (i + 1);
+            File result = new File(dir, "testng-output/testng-results.xml");
+            if (result.isFile()) {
+                results.add(result);
+            }
+            File[] reports = new File(dir, "test-reports").listFiles();
+            if (reports != null) {
+                for (File report : reports) {
+                    if (report.getName().startsWith("Trace_") && report.getName().endsWith(".json")) {
+                        traces.add(report);
+                    } else if (report.getName().endsWith(".xlsx")) {
+                        workbooks.put(label + " " + report.getName().replaceFirst("_\\d+\\.xlsx$", ""), report);
+                    } else if (report.isFile()) {
+                        FileUtils.copyFile(report, new File(merged, "shard-" + (i + 1) + "_" + report.getName()));
+                    }
+                }
+            }
+            File[] screenshots = new File(dir, "screenshots").listFiles();
+            if (screenshots != null) {
+                for (File screenshot : screenshots) {
+                    if (!screenshot.isFile()) {
+                        continue;
+                    }
+                    FileUtils.copyFile(screenshot,
+                            new File(merged, "screenshots/shard-" + (i + 1) + "_" + screenshot.getName()));
+                }
+            }
+        }
+        if (!results.isEmpty()) {
+            mergeTestNgResults(results, new File(merged, "testng-results.xml"));
+        }
+        if (!workbooks.isEmpty()) {
+            ExcelReporter.mergeWorkbooks(workbooks, new File(merged, "SuiteReport.xlsx").getPath());
+        }
+        if (!traces.isEmpty()) {
+            mergeTraces(traces, new File(merged, "Trace.json"));
+        }
+    }
+
+    // Each shard traced its own process id, so one file shows the shards side by side
+    @SuppressWarnings("unchecked")
+    static void mergeTraces(List<File> traces, File output) throws IOException {
+        Json json = new Json();
+        List<Object> events = new ArrayList<>();
+        for (File trace : traces) {
+            Map<String, Object> content = json.toType(
+                    new String(Files.readAllBytes(trace.toPath()), StandardCharsets.UTF_8), Json.MAP_TYPE);
+            events.addAll((List<Object>) content.get("traceEvents"));
+        }
+        Map<String, Object> merged = new LinkedHashMap<>();
+        merged.put("displayTimeUnit", "ms");
+        merged.put("traceEvents", events);
+        Files.write(output.toPath(), json.toJson(merged).getBytes(StandardCharsets.UTF_8));
+        System.out.println("✓ Merged " + traces.size() + " trace timeline(s): " + output.getPath());
+    }
+
+    // One <testng-results> document holding every shard's <suite>, with summed totals
+    static void mergeTestNgResults(List<File> results, File output) throws Exception {
+        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        Document merged = builder.newDocument();
+        Element root = merged.createElement("testng-results");
+        merged.appendChild(root);
+        String[] counters = {"ignored", "total", "passed", "failed", "skipped"};
+        long[] totals = new long[counters.length];
+
+        for (File result : results) {
+            Element shardRoot = builder.parse(result).getDocumentElement();
+            for (int i = 0; i < counters.length; i++) {
+                String value = shardRoot.getAttribute(counters[i]);
+                if (!value.isEmpty()) {
+                    totals[i] += Long.parseLong(value);
+                }
+            }
+            NodeList suites = shardRoot.getElementsByTagName("suite");
+            for (int i = 0; i < suites.getLength(); i++) {
+                root.appendChild(merged.importNode(suites.item(i), true));
+            }
+        }
+        for (int i = 0; i < counters.length; i++) {
+            root.setAttribute(counters[i], String.valueOf(totals[i]));
+        }
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new DOMSource(merged), new StreamResult(output));
+        System.out.println("✓ Merged TestNG results: " + totals[1] + " tests, " + totals[2] + " passed, "
+                + totals[3] + " failed, " + totals[4] + " skipped");
+    }
+}
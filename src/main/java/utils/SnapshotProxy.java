@@ -0,0 +1,219 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+/**
+ * Records storefront traffic to an {@link HttpSnapshotStore} and replays it,
+ * so page objects can run against a local snapshot with no network.
+ *
+ * Interception happens inside the browser's network stack through the
+ * DevTools Fetch domain rather than a socket-level proxy, so HTTPS pages are
+ * captured without installing a man-in-the-middle certificate.
+ *
+ *   record  every response is stored (body, status, headers) and passed on
+ *   replay  requests are answered from the store after the injected latency;
+ *           unrecorded requests fail as if offline (or go to the network
+ *           with proxy.passthrough=true)
+ *
+ * Configured with system properties:
+ *   proxy.mode          - off, record or replay (default off)
+ *   proxy.store         - store directory (default snapshots/storefront)
+ *   proxy.latencyMillis - delay added to each replayed response (default 0)
+ *   proxy.jitterMillis  - random extra delay up to this value (default 0)
+ *   proxy.ignoreParams  - query parameters ignored when matching (default "_")
+ *   proxy.passthrough   - let unrecorded requests reach the network in replay (default false)
+ */
+public class SnapshotProxy {
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    // Headers that describe the wire encoding of the original body, not the decoded body we store
+    private static final List<String> DROPPED_HEADERS = Arrays.asList("content-encoding", "content-length", "transfer-encoding");
+
+    private static final Mode MODE = Mode.valueOf(System.getProperty("proxy.mode", "off").toUpperCase());
+    private static HttpSnapshotStore sharedStore;
+
+    private final HttpSnapshotStore store;
+    private final Mode mode;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final boolean passthrough;
+    private final ScheduledExecutorService responder = Executors.newScheduledThreadPool(4, task -> {
+        Thread thread = new Thread(task, "snapshot-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private DevTools devTools;
+
+    public SnapshotProxy(HttpSnapshotStore store, Mode mode, long latencyMillis, long jitterMillis, boolean passthrough) {
+        this.store = store;
+        this.mode = mode;
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.passthrough = passthrough;
+    }
+
+    public static boolean isEnabled() {
+        return MODE != Mode.OFF;
+    }
+
+    // Attach the proxy configured by system properties to a new session
+    public static SnapshotProxy attachConfigured(WebDriver driver) {
+        if (!isEnabled()) {
+            return null;
+        }
+        SnapshotProxy proxy = new SnapshotProxy(sharedStore(), MODE,
+                Long.getLong("proxy.latencyMillis", 0), Long.getLong("proxy.jitterMillis", 0),
+                Boolean.getBoolean("proxy.passthrough"));
+        proxy.attach(driver);
+        return proxy;
+    }
+
+    private static synchronized HttpSnapshotStore sharedStore() {
+        if (sharedStore == null) {
+            try {
+                sharedStore = new HttpSnapshotStore(Paths.get(System.getProperty("proxy.store", "snapshots/storefront")),
+                        HttpSnapshotStore.paramSet(System.getProperty("proxy.ignoreParams", "_")));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot open snapshot store: " + e.getMessage(), e);
+            }
+        }
+        return sharedStore;
+    }
+
+    public void attach(WebDriver driver) {
+        if (!(driver instanceof HasDevTools)) {
+            throw new IllegalStateException("Snapshot proxy needs a DevTools-capable driver");
+        }
+        devTools = ((HasDevTools) driver).getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        devTools.addListener(new Event<Map<String, Object>>("Fetch.requestPaused",
+                input -> input.read(Json.MAP_TYPE)), paused -> responder.execute(() -> handle(paused)));
+
+        Map<String, Object> pattern = new HashMap<>();
+        pattern.put("urlPattern", "*");
+        pattern.put("requestStage", mode == Mode.RECORD ? "Response" : "Request");
+        devTools.send(new Command<Void>("Fetch.enable",
+                Collections.singletonMap("patterns", Collections.singletonList(pattern))));
+        System.out.println("✓ Snapshot proxy in " + mode + " mode (" + store.size() + " recorded responses in "
+                + store.getDirectory() + ")");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handle(Map<String, Object> paused) {
+        String requestId = String.valueOf(paused.get("requestId"));
+        Map<String, Object> request = (Map<String, Object>) paused.get("request");
+        String url = String.valueOf(request.get("url"));
+        String method = String.valueOf(request.get("method"));
+        Object postData = request.get("postData");
+        byte[] requestBody = postData == null ? null : String.valueOf(postData).getBytes(StandardCharsets.UTF_8);
+        try {
+            if (mode == Mode.RECORD) {
+                recordResponse(requestId, method, url, requestBody, paused);
+            } else {
+                replayResponse(requestId, method, url, requestBody);
+            }
+        } catch (RuntimeException | IOException e) {
+            System.err.println("Snapshot proxy failed for " + url + ": " + e.getMessage());
+            sendQuietly("Fetch.continueRequest", Collections.singletonMap("requestId", requestId));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recordResponse(String requestId, String method, String url, byte[] requestBody,
+                                Map<String, Object> paused) throws IOException {
+        Object status = paused.get("responseStatusCode");
+        if (status != null && paused.get("responseErrorReason") == null) {
+            byte[] body = new byte[0];
+            try {
+                Map<String, Object> result = devTools.send(new Command<Map<String, Object>>("Fetch.getResponseBody",
+                        Collections.singletonMap("requestId", requestId), input -> input.read(Json.MAP_TYPE)));
+                String encoded = String.valueOf(result.get("body"));
+                body = Boolean.TRUE.equals(result.get("base64Encoded"))
+                        ? Base64.getDecoder().decode(encoded)
+                        : encoded.getBytes(StandardCharsets.UTF_8);
+            } catch (RuntimeException e) {
+                // Redirects and empty responses have no body
+            }
+            Map<String, String> headers = new LinkedHashMap<>();
+            Object rawHeaders = paused.get("responseHeaders");
+            if (rawHeaders instanceof List) {
+                for (Map<String, Object> header : (List<Map<String, Object>>) rawHeaders) {
+                    String name = String.valueOf(header.get("name"));
+                    if (!DROPPED_HEADERS.contains(name.toLowerCase())) {
+                        headers.merge(name, String.valueOf(header.get("value")), (a, b) -> a + "\n" + b);
+                    }
+                }
+            }
+            store.record(method, url, requestBody, ((Number) status).intValue(), headers, body);
+        }
+        devTools.send(new Command<Void>("Fetch.continueRequest", Collections.singletonMap("requestId", requestId)));
+    }
+
+    private void replayResponse(String requestId, String method, String url, byte[] requestBody)
+            throws IOException {
+        HttpSnapshotStore.Entry entry = store.lookup(method, url, requestBody);
+        if (entry == null) {
+            if (passthrough) {
+                devTools.send(new Command<Void>("Fetch.continueRequest", Collections.singletonMap("requestId", requestId)));
+            } else {
+                Map<String, Object> params = new HashMap<>();
+                params.put("requestId", requestId);
+                params.put("errorReason", "InternetDisconnected");
+                devTools.send(new Command<Void>("Fetch.failRequest", params));
+            }
+            return;
+        }
+
+        List<Map<String, String>> headers = new ArrayList<>();
+        entry.getHeaders().forEach((name, values) -> {
+            for (String value : values.split("\n")) {
+                Map<String, String> header = new HashMap<>();
+                header.put("name", name);
+                header.put("value", value);
+                headers.add(header);
+            }
+        });
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", requestId);
+        params.put("responseCode", entry.getStatus());
+        params.put("responseHeaders", headers);
+        params.put("body", Base64.getEncoder().encodeToString(store.readBody(entry)));
+
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delay > 0) {
+            responder.schedule(() -> sendQuietly("Fetch.fulfillRequest", params), delay, TimeUnit.MILLISECONDS);
+        } else {
+            devTools.send(new Command<Void>("Fetch.fulfillRequest", params));
+        }
+    }
+
+    private void sendQuietly(String method, Map<String, Object> params) {
+        try {
+            devTools.send(new Command<Void>(method, params));
+        } catch (RuntimeException e) {
+            // The page may have navigated away and cancelled the request
+        }
+    }
+}
@@ -1,24 +1,59 @@
 package utils;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
 import org.testng.annotations.DataProvider;
 
+// Providers build rows lazily and run in parallel; the number of concurrent
+// rows is bounded by data-provider-thread-count in testng.xml (-Dtest.dataThreads).
+// TestNG drains a parallel provider before dispatching its rows, so the iterators
+// save memory rather than start-up time. Rows run on TestNG worker threads, so
+// browser tests lease a driver per row (BaseTest.withRowDriver).
 public class TestDataProvider {
-    
-    @DataProvider(name = "categoryProductData")
-    public static Object[][] getCategoryProductData() {
-        return new Object[][] {
-            {"Headphones", 0},   // Category name, Product index
-            {"Speakers", 1},
-            {"Earbuds", 0}
-        };
+
+    private static final List<String> CATEGORIES = Arrays.asList(
+            Constants.CATEGORY_HEADPHONES, Constants.CATEGORY_SPEAKERS, Constants.CATEGORY_EARBUDS);
+    private static final int PRODUCTS_PER_CATEGORY = Integer.getInteger("data.productsPerCategory", 8);
+    private static final int MAX_QUANTITY = Integer.getInteger("data.maxQuantity", 5);
+
+    @DataProvider(name = "categoryProductData", parallel = true)
+    public static Iterator<Object[]> getCategoryProductData() {
+        // Category name, product index, quantity
+        return DataRows.limited(DataRows.combinations(
+                CATEGORIES, range(0, PRODUCTS_PER_CATEGORY), range(1, MAX_QUANTITY + 1)));
+    }
+
+    @DataProvider(name = "multipleProductsPerCategory", parallel = true)
+    public static Iterator<Object[]> getMultipleProductsData() {
+        // Category name, product indexes: every pair of distinct products in the category
+        List<int[]> pairs = new ArrayList<>();
+        for (int first = 0; first < PRODUCTS_PER_CATEGORY; first++) {
+            for (int second = first + 1; second < PRODUCTS_PER_CATEGORY; second++) {
+                pairs.add(new int[]{first, second});
+            }
+        }
+        return DataRows.limited(DataRows.combinations(CATEGORIES, pairs));
+    }
+
+    @DataProvider(name = "checkoutInputsFromFile", parallel = true)
+    public static Iterator<Object[]> getCheckoutInputsFromFile() {
+        // email,firstName,lastName,address,city,country,state,zip,phone,expectedValid
+        String file = System.getProperty("data.checkoutFile", "testdata/checkout-inputs.csv");
+        return DataRows.limited(DataRows.map(DataRows.csv(Paths.get(file)), fields -> {
+            fields[fields.length - 1] = Boolean.parseBoolean((String) fields[fields.length - 1]);
+            return fields;
+        }));
     }
-    
-    @DataProvider(name = "multipleProductsPerCategory")
-    public static Object[][] getMultipleProductsData() {
-        return new Object[][] {
-            {"Headphones", new int[]{0, 1}},      // Add 2 products from Headphones
-            {"Speakers", new int[]{0}},           // Add 1 product from Speakers
-            {"Earbuds", new int[]{1, 2}}          // Add 2 products from Earbuds
-        };
+
+    private static List<Integer> range(int fromInclusive, int toExclusive) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = fromInclusive; i < toExclusive; i++) {
+            values.add(i);
+        }
+        return values;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package utils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+// Adds a span per TestNG test and configuration method to the trace timeline and
+// exports the timeline to <report.dir>/Trace_<millis>.json when the suite ends
+public class TraceListener implements IInvokedMethodListener, ISuiteListener {
+
+    private static final String START_ATTRIBUTE = "trace.startNanos";
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        testResult.setAttribute(START_ATTRIBUTE, System.nanoTime());
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        Object start = testResult.getAttribute(START_ATTRIBUTE);
+        testResult.removeAttribute(START_ATTRIBUTE);
+        TraceRecorder recorder = TraceRecorder.getInstance();
+        // Page methods can't outlive the test method that called them
+        recorder.closePageFrames();
+        if (!(start instanceof Long)) {
+            return;
+        }
+        Map<String, Object> args = new LinkedHashMap<>();
+        args.put("status", status(testResult.getStatus()));
+        if (testResult.getParameters().length > 0) {
+            args.put("parameters", Arrays.deepToString(testResult.getParameters()));
+        }
+        if (testResult.getThrowable() != null) {
+            args.put("error", String.valueOf(testResult.getThrowable().getMessage()));
+        }
+        String name = method.getTestMethod().getRealClass().getSimpleName() + "." + method.getTestMethod().getMethodName();
+        recorder.complete(name, method.isTestMethod() ? "test" : "config", (Long) start, System.nanoTime(), args);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        TraceRecorder.getInstance().export(new File(Constants.REPORT_DIR), "Trace_" + System.currentTimeMillis());
+    }
+
+    private static String status(int status) {
+        switch (status) {
+            case ITestResult.SUCCESS:
+                return "passed";
+            case ITestResult.FAILURE:
+                return "failed";
+            case ITestResult.SKIP:
+                return "skipped";
+            default:
+                return String.valueOf(status);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+/**
+ * Timeline of a run in Chrome Trace Event format, for chrome://tracing,
+ * Perfetto or any other trace viewer.
+ *
+ * Spans ("complete" events with a start and duration) are recorded per
+ * thread for:
+ *   test / config - every TestNG method (TraceListener)
+ *   webdriver     - every WebDriver, WebElement and navigation call (traced driver)
+ *   wait          - every BasePage wait (BasePage.recordWait)
+ *   page          - every public page-object method that touches the browser
+ *
+ * Page-object spans need no code in the page objects: at each browser call
+ * the stack is inspected for public methods of classes in the page package,
+ * and a span stays open while that method remains on the stack. A page span
+ * therefore runs from its first to its last browser interaction, and two
+ * back-to-back calls of the same method from the same line merge into one.
+ * The stack is walked once per command and once per wait, and only up to the
+ * first caller outside the page package, so the cost doesn't grow with the
+ * depth of the TestNG stack beneath the test.
+ *
+ * Text typed with sendKeys is recorded only as its length, so form input
+ * such as checkout details stays out of the exported trace.
+ *
+ * Configured with system properties:
+ *   trace.enabled      - record and export a trace (default true)
+ *   trace.pagePackage  - package of the page objects (default "pages")
+ *   trace.maxEvents    - events kept before new ones are dropped (default 500000)
+ */
+public class TraceRecorder {
+
+    private static final TraceRecorder INSTANCE = new TraceRecorder();
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("trace.enabled", "true"));
+    private static final String PAGE_PACKAGE = System.getProperty("trace.pagePackage", "pages") + ".";
+    private static final int MAX_EVENTS = Integer.getInteger("trace.maxEvents", 500_000);
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final long pid = ProcessHandle.current().pid();
+    private final long originNanos = System.nanoTime();
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger eventCount = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+    // Public page methods currently open per thread, outermost first
+    private final ThreadLocal<List<PageFrame>> openPageFrames = ThreadLocal.withInitial(ArrayList::new);
+    private final Map<String, Boolean> publicPageMethods = new ConcurrentHashMap<>();
+    private final List<SpanListener> spanListeners = new CopyOnWriteArrayList<>();
+
+    // Told about every span as it completes, on the thread that recorded it
+    public interface SpanListener {
+        void onSpan(String name, String category, long durationNanos);
+    }
+
+    private TraceRecorder() {
+    }
+
+    public static TraceRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Wrap a driver so every call on it (and on its elements, navigation, etc.) becomes a span
+    public static WebDriver traced(WebDriver driver) {
+        if (!ENABLED) {
+            return driver;
+        }
+        return new EventFiringDecorator<WebDriver>(new CommandListener()).decorate(driver);
+    }
+
+    public void addSpanListener(SpanListener listener) {
+        spanListeners.add(listener);
+    }
+
+    // Record a finished span; times are System.nanoTime() values
+    public void complete(String name, String category, long startNanos, long endNanos, Map<String, Object> args) {
+        if (!ENABLED) {
+            return;
+        }
+        for (SpanListener listener : spanListeners) {
+            listener.onSpan(name, category, Math.max(0, endNanos - startNanos));
+        }
+        if (eventCount.incrementAndGet() > MAX_EVENTS) {
+            dropped.incrementAndGet();
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        threadNames.putIfAbsent(thread.getId(), thread.getName());
+        events.add(new Event(name, category, startNanos, Math.max(0, endNanos - startNanos), thread.getId(), args));
+    }
+
+    /**
+     * Note browser activity on the calling thread. Page-object methods that
+     * have left the stack since the last activity are closed at that last
+     * activity; newly entered ones are opened now.
+     */
+    public void markPageActivity() {
+        markPageActivity(System.nanoTime());
+    }
+
+    // Same, for activity that happened at the given System.nanoTime(), e.g. the start of a wait
+    public void markPageActivity(long now) {
+        if (!ENABLED) {
+            return;
+        }
+        List<PageFrame> stack = currentPageFrames();
+        List<PageFrame> open = openPageFrames.get();
+
+        int common = 0;
+        while (common < open.size() && common < stack.size() && open.get(common).sameCall(stack.get(common))) {
+            common++;
+        }
+        closePageFrames(open, common);
+        for (int i = common; i < stack.size(); i++) {
+            PageFrame frame = stack.get(i);
+            frame.start = now;
+            open.add(frame);
+        }
+        extendPageFrames(now);
+    }
+
+    // Stretch the page spans already open on this thread to cover the given time, without walking the stack
+    public void extendPageFrames(long now) {
+        if (!ENABLED) {
+            return;
+        }
+        // Activity reported after the fact (a wait's start) can move a span's start back
+        for (PageFrame frame : openPageFrames.get()) {
+            frame.start = Math.min(frame.start, now);
+            frame.lastActivity = Math.max(frame.lastActivity, now);
+        }
+    }
+
+    // Close every page span still open on this thread, e.g. when a test method ends
+    public void closePageFrames() {
+        closePageFrames(openPageFrames.get(), 0);
+    }
+
+    private void closePageFrames(List<PageFrame> open, int keep) {
+        while (open.size() > keep) {
+            PageFrame frame = open.remove(open.size() - 1);
+            complete(frame.name, "page", frame.start, frame.lastActivity, null);
+        }
+    }
+
+    // Public page-object methods on the current stack, outermost first
+    private List<PageFrame> currentPageFrames() {
+        return WALKER.walk(frames -> {
+            List<PageFrame> pageFrames = new ArrayList<>();
+            StackWalker.StackFrame pending = null;
+            boolean inPages = false;
+            for (Iterator<StackWalker.StackFrame> it = frames.iterator(); it.hasNext(); ) {
+                StackWalker.StackFrame frame = it.next();
+                if (pending != null) {
+                    // The calling line is part of the key, so repeated calls from different lines stay apart
+                    pageFrames.add(pageFrame(pending, frame.getClassName() + ":" + frame.getByteCodeIndex()));
+                    pending = null;
+                }
+                boolean page = frame.getClassName().startsWith(PAGE_PACKAGE);
+                if (page && isPublicPageMethod(frame)) {
+                    pending = frame;
+                    inPages = true;
+                } else if (!page && inPages) {
+                    // Back in the test: nothing further down is a page object
+                    break;
+                }
+            }
+            if (pending != null) {
+                pageFrames.add(pageFrame(pending, ""));
+            }
+            Collections.reverse(pageFrames);
+            return pageFrames;
+        });
+    }
+
+    private static PageFrame pageFrame(StackWalker.StackFrame frame, String caller) {
+        return new PageFrame(frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName(),
+                frame.getClassName() + "#" + frame.getMethodName() + frame.getDescriptor() + "@" + caller);
+    }
+
+    private boolean isPublicPageMethod(StackWalker.StackFrame frame) {
+        String key = frame.getClassName() + "#" + frame.getMethodName() + frame.getDescriptor();
+        return publicPageMethods.computeIfAbsent(key, unused -> {
+            try {
+                Method method = frame.getDeclaringClass().getDeclaredMethod(frame.getMethodName(),
+                        frame.getMethodType().parameterArray());
+                return Modifier.isPublic(method.getModifiers()) && !method.isSynthetic();
+            } catch (NoSuchMethodException e) {
+                // Constructors and class initialisers
+                return false;
+            }
+        });
+    }
+
+    // Write the trace as {"traceEvents": [...]} and return the file, or null if nothing was recorded
+    public File export(File directory, String baseName) {
+        if (!ENABLED || events.isEmpty()) {
+            return null;
+        }
+        Json json = new Json();
+        File file = new File(directory, baseName + ".json");
+        directory.mkdirs();
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            out.println("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [");
+            boolean first = true;
+            for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+                Map<String, Object> meta = new LinkedHashMap<>();
+                meta.put("name", "thread_name");
+                meta.put("ph", "M");
+                meta.put("pid", pid);
+                meta.put("tid", thread.getKey());
+                meta.put("args", Map.of("name", thread.getValue()));
+                out.print(first ? "" : ",\n");
+                out.print(json.toJson(meta).replace("\n", ""));
+                first = false;
+            }
+            for (Event event : events) {
+                out.print(first ? "" : ",\n");
+                out.print(json.toJson(event.toJson(pid, originNanos)).replace("\n", ""));
+                first = false;
+            }
+            out.println("\n]}");
+        } catch (IOException e) {
+            System.err.println("Failed to save trace: " + e.getMessage());
+            return null;
+        }
+        String note = dropped.get() > 0 ? " (" + dropped.get() + " events over trace.maxEvents dropped)" : "";
+        System.out.println("✓ Trace timeline saved: " + file.getPath() + note);
+        return file;
+    }
+
+    private static final class Event {
+        final String name;
+        final String category;
+        final long startNanos;
+        final long durationNanos;
+        final long threadId;
+        final Map<String, Object> args;
+
+        Event(String name, String category, long startNanos, long durationNanos, long threadId, Map<String, Object> args) {
+            this.name = name;
+            this.category = category;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.threadId = threadId;
+            this.args = args;
+        }
+
+        Map<String, Object> toJson(long pid, long originNanos) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("name", name);
+            json.put("cat", category);
+            json.put("ph", "X");
+            // Trace Event timestamps are microseconds
+            json.put("ts", (startNanos - originNanos) / 1000.0);
+            json.put("dur", durationNanos / 1000.0);
+            json.put("pid", pid);
+            json.put("tid", threadId);
+            if (args != null && !args.isEmpty()) {
+                json.put("args", args);
+            }
+            return json;
+        }
+    }
+
+    private static final class PageFrame {
+        final String name;
+        final String key;
+        long start;
+        long lastActivity;
+
+        PageFrame(String name, String key) {
+            this.name = name;
+            this.key = key;
+        }
+
+        boolean sameCall(PageFrame other) {
+            return key.equals(other.key);
+        }
+    }
+
+    // Turns every call on a decorated driver into a "webdriver" span
+    private static final class CommandListener implements WebDriverListener {
+
+        private final ThreadLocal<List<Long>> starts = ThreadLocal.withInitial(ArrayList::new);
+
+        @Override
+        public void beforeAnyCall(Object target, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                return;
+            }
+            INSTANCE.markPageActivity();
+            starts.get().add(System.nanoTime());
+        }
+
+        @Override
+        public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+            end(target, method, args, null);
+        }
+
+        @Override
+        public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+            end(target, method, args, e.getTargetException());
+        }
+
+        private void end(Object target, Method method, Object[] args, Throwable error) {
+            if (method.getDeclaringClass() == Object.class) {
+                return;
+            }
+            List<Long> open = starts.get();
+            if (open.isEmpty()) {
+                return;
+            }
+            long start = open.remove(open.size() - 1);
+            Map<String, Object> details = new LinkedHashMap<>();
+            if ("sendKeys".equals(method.getName())) {
+                details.put("args", typedLength(args) + " chars");
+            } else if (args != null && args.length > 0
+                    && !(target instanceof WebDriver && "executeScript".equals(method.getName()))) {
+                details.put("args", describe(args));
+            }
+            if (error != null) {
+                details.put("error", error.getClass().getSimpleName());
+            }
+            long end = System.nanoTime();
+            INSTANCE.complete(method.getDeclaringClass().getSimpleName() + "." + method.getName(), "webdriver",
+                    start, end, details);
+            // Same stack as beforeAnyCall, so the open page spans are already the right ones
+            INSTANCE.extendPageFrames(end);
+        }
+
+        private static int typedLength(Object[] args) {
+            int length = 0;
+            for (Object arg : args) {
+                if (arg instanceof CharSequence[]) {
+                    for (CharSequence keys : (CharSequence[]) arg) {
+                        length += keys.length();
+                    }
+                }
+            }
+            return length;
+        }
+
+        private static String describe(Object[] args) {
+            List<String> parts = new ArrayList<>();
+            for (Object arg : args) {
+                String text = arg instanceof CharSequence[]
+                        ? String.join("", (CharSequence[]) arg)
+                        : String.valueOf(arg);
+                parts.add(text.length() > 120 ? text.substring(0, 120) + "..." : text);
+            }
+            return String.join(", ", parts);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package utils;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Visual check of a screenshot against its approved baseline image,
+ * <baselineDir>/<name>.png. The first capture of a name becomes its baseline.
+ * When a capture differs, the diff mask is written to
+ * <report.dir>/VisualDiff_<name>_<millis>.png (see VisualDiff).
+ *
+ * Configured with system properties:
+ *   visual.gate            - "report" (default) logs differences, "fail" also fails the check, "off" disables
+ *   visual.baselineDir     - approved baseline images (default testdata/visual-baselines)
+ *   visual.tolerance       - per-channel colour difference treated as equal (default 8)
+ *   visual.maxChangedRatio - share of changed pixels still accepted (default 0.001)
+ *   visual.ignore          - regions to skip, "x,y,width,height;..." in screenshot pixels
+ *   visual.updateBaseline  - replace the baselines with this run's captures (default false)
+ */
+public class VisualBaseline {
+
+    private static final VisualBaseline INSTANCE = new VisualBaseline(
+            Paths.get(System.getProperty("visual.baselineDir", "testdata/visual-baselines")),
+            Paths.get(Constants.REPORT_DIR));
+
+    private final int tolerance = Integer.getInteger("visual.tolerance", 8);
+    private final double maxChangedRatio = Double.parseDouble(System.getProperty("visual.maxChangedRatio", "0.001"));
+    private final boolean updateBaseline = Boolean.getBoolean("visual.updateBaseline");
+    private final String gate;
+    private final List<Rectangle> ignoreRegions;
+    private final Path baselineDir;
+    private final Path reportDir;
+
+    public VisualBaseline(Path baselineDir, Path reportDir) {
+        this(baselineDir, reportDir, System.getProperty("visual.gate", "report"),
+                System.getProperty("visual.ignore", ""));
+    }
+
+    // Malformed ignore regions fail here, before any screenshot is judged
+    public VisualBaseline(Path baselineDir, Path reportDir, String gate, String ignore) {
+        this.baselineDir = baselineDir;
+        this.reportDir = reportDir;
+        this.gate = gate.toLowerCase();
+        this.ignoreRegions = VisualDiff.parseRegions(ignore);
+    }
+
+    public static VisualBaseline getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Compare captured PNG bytes with the baseline of the same name.
+     *
+     * @return false only when the gate is "fail" and too many pixels changed or
+     *         the comparison itself failed; a missing baseline is recorded and passes
+     */
+    public boolean matches(String name, byte[] png) {
+        if ("off".equals(gate)) {
+            return true;
+        }
+        if (png == null) {
+            System.err.println("Failed to compare screenshot " + name + ": nothing was captured");
+            return !"fail".equals(gate);
+        }
+        File baseline = baselineDir.resolve(name + ".png").toFile();
+        try {
+            if (updateBaseline || !baseline.isFile()) {
+                writeBaseline(baseline.toPath(), png);
+                System.out.println("✓ Visual baseline " + (updateBaseline ? "updated" : "recorded") + ": " + baseline);
+                return true;
+            }
+
+            BufferedImage actual = ImageIO.read(new ByteArrayInputStream(png));
+            if (actual == null) {
+                throw new IOException("Screenshot bytes are not a readable image");
+            }
+            VisualDiff diff = new VisualDiff(tolerance);
+            ignoreRegions.forEach(diff::ignore);
+            VisualDiff.Result result = diff.compare(VisualDiff.read(baseline), actual);
+            String summary = String.format("%s: %.3f%% of pixels changed (%d) in %d ms",
+                    name, result.getChangedRatio() * 100, result.getChangedPixels(), result.getElapsedMillis());
+            if (result.getChangedPixels() == 0) {
+                System.out.println("✓ Visual match " + summary);
+                return true;
+            }
+
+            File mask = reportDir.resolve("VisualDiff_" + name + "_" + System.currentTimeMillis() + ".png").toFile();
+            result.writeMask(mask);
+            if (result.getChangedRatio() <= maxChangedRatio) {
+                System.out.println("✓ Visual match within tolerance " + summary + " - mask: " + mask);
+                return true;
+            }
+            System.out.println("Warning: visual change " + summary + " - mask: " + mask);
+            return !"fail".equals(gate);
+        } catch (IOException | RuntimeException e) {
+            // An unreadable baseline or capture must not pass a failing gate unnoticed
+            System.err.println("Failed to compare screenshot " + name + ": " + e.getMessage());
+            return !"fail".equals(gate);
+        }
+    }
+
+    // Shards may record the same baseline at once; the move makes the last one win whole
+    private static void writeBaseline(Path file, byte[] png) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, png);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package utils;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Pixel comparison of a capture against a baseline image. The compared area
+ * is split into bands of rows that are diffed in parallel on the fork-join
+ * pool, reading the images' raster buffers directly rather than through
+ * getRGB, so a 4K capture compares in tens of milliseconds.
+ *
+ * A pixel counts as changed when any colour channel differs by more than the
+ * tolerance. Pixels inside an ignore region are skipped and left out of the
+ * changed-pixel ratio. When the images differ in size, the area covered by
+ * only one of them counts as changed.
+ *
+ * The diff mask marks changed pixels in red and ignore regions in blue and is
+ * transparent elsewhere. Only writeMask draws the capture under it, faded to
+ * grey, so a comparison with no changes costs no per-pixel writes.
+ */
+public class VisualDiff {
+
+    // Largest band of rows one fork-join leaf compares
+    private static final int BAND_PIXELS = 64 * 1024;
+    private static final int CHANGED = 0xFFFF0000;
+    private static final int IGNORED = 0xFF3060C0;
+
+    private final int tolerance;
+    private final List<Rectangle> ignoreRegions = new ArrayList<>();
+
+    /**
+     * @param tolerance largest per-channel difference (0-255) still treated as the same colour
+     */
+    public VisualDiff(int tolerance) {
+        if (tolerance < 0 || tolerance > 255) {
+            throw new IllegalArgumentException("Tolerance must be between 0 and 255: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    // Leave a region out of the comparison, e.g. a clock or a rotating banner
+    public VisualDiff ignore(Rectangle region) {
+        ignoreRegions.add(new Rectangle(region));
+        return this;
+    }
+
+    // Regions as "x,y,width,height" separated by ';', as in -Dvisual.ignore
+    public VisualDiff ignore(String regions) {
+        parseRegions(regions).forEach(this::ignore);
+        return this;
+    }
+
+    // Throws IllegalArgumentException naming the malformed region
+    public static List<Rectangle> parseRegions(String regions) {
+        List<Rectangle> parsed = new ArrayList<>();
+        if (regions == null || regions.trim().isEmpty()) {
+            return parsed;
+        }
+        for (String region : regions.split(";")) {
+            String[] parts = region.trim().split("\\s*,\\s*");
+            try {
+                if (parts.length != 4) {
+                    throw new NumberFormatException("expected 4 numbers");
+                }
+                parsed.add(new Rectangle(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]), Integer.parseInt(parts[3])));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Ignore region must be x,y,width,height: " + region, e);
+            }
+        }
+        return parsed;
+    }
+
+    public Result compare(BufferedImage baseline, BufferedImage actual) {
+        long start = System.nanoTime();
+        int width = Math.max(baseline.getWidth(), actual.getWidth());
+        int height = Math.max(baseline.getHeight(), actual.getHeight());
+        Mask mask = new Mask(width, height);
+
+        Band band = new Band(Pixels.of(baseline), Pixels.of(actual), mask, width, 0, height, ignoreMask(width));
+        ForkJoinPool.commonPool().invoke(band);
+
+        long ignored = band.ignoredPixels.get();
+        return new Result(band.changedPixels.get(), (long) width * height - ignored, ignored, mask, actual,
+                System.nanoTime() - start);
+    }
+
+    public Result compare(File baseline, File actual) throws IOException {
+        return compare(read(baseline), read(actual));
+    }
+
+    static BufferedImage read(File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Not a readable image: " + file);
+        }
+        return image;
+    }
+
+    // For each ignore region, its clipped column span; rows are checked per band
+    private int[][] ignoreMask(int width) {
+        int[][] regions = new int[ignoreRegions.size()][];
+        for (int i = 0; i < regions.length; i++) {
+            Rectangle region = ignoreRegions.get(i);
+            int x0 = Math.max(0, region.x);
+            int x1 = Math.min(width, region.x + region.width);
+            regions[i] = new int[]{x0, x1, region.y, region.y + region.height};
+        }
+        return regions;
+    }
+
+    // Rows [fromY, toY) of the union of both images
+    private final class Band extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Pixels baseline;
+        private final Pixels actual;
+        private final Mask mask;
+        private final int width;
+        private final int fromY;
+        private final int toY;
+        private final int[][] ignore;
+        private final AtomicLong changedPixels;
+        private final AtomicLong ignoredPixels;
+
+        Band(Pixels baseline, Pixels actual, Mask mask, int width, int fromY, int toY, int[][] ignore) {
+            this(baseline, actual, mask, width, fromY, toY, ignore, new AtomicLong(), new AtomicLong());
+        }
+
+        private Band(Pixels baseline, Pixels actual, Mask mask, int width, int fromY, int toY, int[][] ignore,
+                     AtomicLong changedPixels, AtomicLong ignoredPixels) {
+            this.baseline = baseline;
+            this.actual = actual;
+            this.mask = mask;
+            this.width = width;
+            this.fromY = fromY;
+            this.toY = toY;
+            this.ignore = ignore;
+            this.changedPixels = changedPixels;
+            this.ignoredPixels = ignoredPixels;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = toY - fromY;
+            if (rows > 1 && (long) rows * width > BAND_PIXELS) {
+                int middle = fromY + rows / 2;
+                invokeAll(
+                        new Band(baseline, actual, mask, width, fromY, middle, ignore, changedPixels, ignoredPixels),
+                        new Band(baseline, actual, mask, width, middle, toY, ignore, changedPixels, ignoredPixels));
+                return;
+            }
+
+            int[] expectedRow = new int[width];
+            int[] actualRow = new int[width];
+            boolean[] ignoredColumns = new boolean[width];
+            int[] marks = null;
+            long changed = 0;
+            long ignored = 0;
+            for (int y = fromY; y < toY; y++) {
+                int overlap = Math.min(baseline.readRow(y, expectedRow), actual.readRow(y, actualRow));
+                boolean anyIgnored = ignoredColumns(y, ignoredColumns);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    int mark;
+                    if (anyIgnored && ignoredColumns[x]) {
+                        mark = IGNORED;
+                        ignored++;
+                    } else if (x >= overlap || !sameColour(expectedRow[x], actualRow[x])) {
+                        mark = CHANGED;
+                        changed++;
+                    } else {
+                        continue;
+                    }
+                    if (marks == null) {
+                        marks = mask.pixels();
+                    }
+                    marks[offset + x] = mark;
+                }
+            }
+            changedPixels.addAndGet(changed);
+            ignoredPixels.addAndGet(ignored);
+        }
+
+        private boolean ignoredColumns(int y, boolean[] columns) {
+            if (ignore.length == 0) {
+                return false;
+            }
+            boolean any = false;
+            Arrays.fill(columns, false);
+            for (int[] region : ignore) {
+                if (y >= region[2] && y < region[3] && region[0] < region[1]) {
+                    Arrays.fill(columns, region[0], region[1], true);
+                    any = true;
+                }
+            }
+            return any;
+        }
+
+        private boolean sameColour(int a, int b) {
+            return a == b || Math.abs(((a >> 16) & 0xff) - ((b >> 16) & 0xff)) <= tolerance
+                    && Math.abs(((a >> 8) & 0xff) - ((b >> 8) & 0xff)) <= tolerance
+                    && Math.abs((a & 0xff) - (b & 0xff)) <= tolerance;
+        }
+    }
+
+    // Allocated on the first marked pixel, so an unchanged capture costs no mask
+    private static final class Mask {
+        private final int width;
+        private final int height;
+        private BufferedImage image;
+
+        Mask(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        synchronized BufferedImage image() {
+            if (image == null) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            }
+            return image;
+        }
+
+        int[] pixels() {
+            return ((DataBufferInt) image().getRaster().getDataBuffer()).getData();
+        }
+    }
+
+    // Unchanged pixels as a light grey version of the capture
+    private static int faded(int rgb) {
+        int luma = (((rgb >> 16) & 0xff) * 77 + ((rgb >> 8) & 0xff) * 150 + (rgb & 0xff) * 29) >> 8;
+        int grey = 192 + (luma >> 2);
+        return 0xFF000000 | (grey << 16) | (grey << 8) | grey;
+    }
+
+    // Row access to an image's pixels as 0xRRGGBB, straight from the raster buffer for the common types
+    private abstract static class Pixels {
+        final int width;
+        final int height;
+
+        Pixels(BufferedImage image) {
+            width = image.getWidth();
+            height = image.getHeight();
+        }
+
+        static Pixels of(BufferedImage image) {
+            switch (image.getType()) {
+                case BufferedImage.TYPE_INT_RGB:
+                case BufferedImage.TYPE_INT_ARGB:
+                    return new IntPixels(image);
+                case BufferedImage.TYPE_3BYTE_BGR:
+                    return new BytePixels(image, 3);
+                case BufferedImage.TYPE_4BYTE_ABGR:
+                    return new BytePixels(image, 4);
+                default:
+                    return new GenericPixels(image);
+            }
+        }
+
+        // Fill row with line y and return how many pixels it has (0 below the image)
+        int readRow(int y, int[] row) {
+            if (y >= height) {
+                return 0;
+            }
+            read(y, row);
+            return width;
+        }
+
+        abstract void read(int y, int[] row);
+    }
+
+    private static final class IntPixels extends Pixels {
+        private final int[] data;
+
+        IntPixels(BufferedImage image) {
+            super(image);
+            data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+
+        @Override
+        void read(int y, int[] row) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                row[x] = data[offset + x] & 0xFFFFFF;
+            }
+        }
+    }
+
+    private static final class BytePixels extends Pixels {
+        private final byte[] data;
+        private final int step;
+
+        BytePixels(BufferedImage image, int step) {
+            super(image);
+            this.data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+            this.step = step;
+        }
+
+        @Override
+        void read(int y, int[] row) {
+            // Samples are B, G, R after the alpha byte, if any
+            int i = y * width * step + step - 3;
+            for (int x = 0; x < width; x++, i += step) {
+                row[x] = ((data[i + 2] & 0xff) << 16) | ((data[i + 1] & 0xff) << 8) | (data[i] & 0xff);
+            }
+        }
+    }
+
+    private static final class GenericPixels extends Pixels {
+        private final BufferedImage image;
+
+        GenericPixels(BufferedImage image) {
+            super(image);
+            this.image = image;
+        }
+
+        @Override
+        void read(int y, int[] row) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                row[x] &= 0xFFFFFF;
+            }
+        }
+    }
+
+    public static class Result {
+        private final long changedPixels;
+        private final long comparedPixels;
+        private final long ignoredPixels;
+        private final Mask mask;
+        private final BufferedImage actual;
+        private final long elapsedNanos;
+
+        Result(long changedPixels, long comparedPixels, long ignoredPixels, Mask mask, BufferedImage actual,
+               long elapsedNanos) {
+            this.changedPixels = changedPixels;
+            this.comparedPixels = comparedPixels;
+            this.ignoredPixels = ignoredPixels;
+            this.mask = mask;
+            this.actual = actual;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getChangedPixels() {
+            return changedPixels;
+        }
+
+        public long getComparedPixels() {
+            return comparedPixels;
+        }
+
+        public long getIgnoredPixels() {
+            return ignoredPixels;
+        }
+
+        // Changed share of the compared (not ignored) pixels, 0 to 1
+        public double getChangedRatio() {
+            return comparedPixels == 0 ? 0 : (double) changedPixels / comparedPixels;
+        }
+
+        // Changed and ignored pixels only, transparent elsewhere
+        public BufferedImage getMask() {
+            return mask.image();
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public void writeMask(File file) throws IOException {
+            if (file.getParentFile() != null) {
+                Files.createDirectories(file.getParentFile().toPath());
+            }
+            ImageIO.write(render(), "png", file);
+        }
+
+        // The mask over the capture faded to grey; white where only the baseline has pixels
+        private BufferedImage render() {
+            int width = mask.width;
+            int height = mask.height;
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            int[] out = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int[] marks = mask.pixels();
+            Pixels capture = Pixels.of(actual);
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                int covered = capture.readRow(y, row);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    int mark = marks[offset + x];
+                    out[offset + x] = mark != 0 ? mark : x < covered ? faded(row[x]) : 0xFFFFFF;
+                }
+            }
+            return image;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.json.Json;
+
+/**
+ * Duration, outcome and poll count of every page-object wait, keyed by page
+ * class, wait method and locator. Exported at suite end as JSON and CSV with
+ * p50/p95/p99 per key, to show which locators cost the run its time.
+ */
+public class WaitMetrics {
+
+    public enum Outcome { HIT, TIMEOUT, EXCEPTION }
+
+    private static final WaitMetrics INSTANCE = new WaitMetrics();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public static WaitMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public void record(String page, String waitName, String locator,
+                       long durationNanos, Outcome outcome, int polls) {
+        String key = page + "|" + waitName + "|" + locator;
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry(page, waitName, locator));
+        entry.histogram.recordMicros(durationNanos / 1000);
+        entry.outcomes.get(outcome).increment();
+        entry.polls.add(polls);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    // Summary rows sorted by total time spent, slowest first
+    public List<Map<String, Object>> summarize() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort((a, b) -> Double.compare(
+                b.histogram.getMeanMicros() * b.histogram.getCount(),
+                a.histogram.getMeanMicros() * a.histogram.getCount()));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Entry entry : sorted) {
+            LatencyHistogram h = entry.histogram;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("page", entry.page);
+            row.put("wait", entry.waitName);
+            row.put("locator", entry.locator);
+            row.put("count", h.getCount());
+            row.put("hits", entry.outcomes.get(Outcome.HIT).sum());
+            row.put("timeouts", entry.outcomes.get(Outcome.TIMEOUT).sum());
+            row.put("exceptions", entry.outcomes.get(Outcome.EXCEPTION).sum());
+            row.put("polls", entry.polls.sum());
+            row.put("totalMs", millis(h.getMeanMicros() * h.getCount()));
+            row.put("meanMs", millis(h.getMeanMicros()));
+            row.put("p50Ms", millis(h.getPercentileMicros(50)));
+            row.put("p95Ms", millis(h.getPercentileMicros(95)));
+            row.put("p99Ms", millis(h.getPercentileMicros(99)));
+            row.put("maxMs", millis(h.getMaxMicros()));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // Write <baseName>.json and <baseName>.csv into the directory
+    public void export(File directory, String baseName) {
+        if (isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> rows = summarize();
+        try {
+            directory.mkdirs();
+            File jsonFile = new File(directory, baseName + ".json");
+            try (PrintWriter out = new PrintWriter(jsonFile, StandardCharsets.UTF_8)) {
+                out.print(new Json().toJson(rows));
+            }
+            File csvFile = new File(directory, baseName + ".csv");
+            try (PrintWriter out = new PrintWriter(csvFile, StandardCharsets.UTF_8)) {
+                out.println(String.join(",", rows.get(0).keySet()));
+                for (Map<String, Object> row : rows) {
+                    List<String> cells = new ArrayList<>();
+                    for (Object value : row.values()) {
+                        cells.add(csvCell(String.valueOf(value)));
+                    }
+                    out.println(String.join(",", cells));
+                }
+            }
+            System.out.println("✓ Wait metrics saved: " + jsonFile.getPath() + ", " + csvFile.getName());
+        } catch (IOException e) {
+            System.err.println("Failed to save wait metrics: " + e.getMessage());
+        }
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    private static String csvCell(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static class Entry {
+        final String page;
+        final String waitName;
+        final String locator;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Map<Outcome, LongAdder> outcomes = new ConcurrentHashMap<>();
+        final LongAdder polls = new LongAdder();
+
+        Entry(String page, String waitName, String locator) {
+            this.page = page;
+            this.waitName = waitName;
+            this.locator = locator;
+            for (Outcome outcome : Outcome.values()) {
+                outcomes.put(outcome, new LongAdder());
+            }
+        }
+    }
+}
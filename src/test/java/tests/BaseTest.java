@@ -1,30 +1,158 @@
 package tests;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterSuite;
-import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
+import utils.BrowserState;
+import utils.CartSeeder;
 import utils.Constants;
+import utils.DriverFactory;
+import utils.DriverPool;
+import utils.PagePerformance;
+import utils.ScreenshotService;
+import utils.WaitMetrics;
 
 public class BaseTest {
-    protected static WebDriver driver;
-    
-    @BeforeSuite
-    public void setUpSuite() {
-        WebDriverManager.chromedriver().setup();
-        driver = new ChromeDriver();
-        driver.manage().window().maximize();
-        driver.get(Constants.BASE_URL);
-        System.out.println("✓ Browser opened for entire test suite");
-    }
-    
-    @AfterSuite
-    public void tearDownSuite() {
-        if (driver != null) {
-            driver.quit();
-            System.out.println("✓ Browser closed after entire test suite");
+    protected static final DriverPool driverPool = DriverPool.getInstance();
+
+    // Saved browser states live here and are rebuilt once older than state.maxAgeMinutes
+    private static final Path STATE_DIR = Paths.get(System.getProperty("state.dir", "target/browser-state"));
+    private static final Duration STATE_MAX_AGE = Duration.ofMinutes(Long.getLong("state.maxAgeMinutes", 20));
+    private static final Map<String, Object> STATE_LOCKS = new ConcurrentHashMap<>();
+
+    // Each test class leases its own browser for all of its methods, so classes
+    // can run in parallel (parallel="classes") up to the pool size
+    @BeforeClass(alwaysRun = true)
+    public void leaseDriver() {
+        WebDriver driver = driverPool.lease();
+        // Fresh sessions start on a blank page; reused ones keep their state
+        if (!driver.getCurrentUrl().startsWith("http")) {
+            driver.get(Constants.BASE_URL);
         }
+        System.out.println("✓ Browser leased for " + getClass().getSimpleName());
+    }
+
+    // Tag page performance records with the test (and data row) about to run on this thread
+    @BeforeMethod(alwaysRun = true)
+    public void tagPerformanceScenario(Method method, Object[] parameters) {
+        String scenario = getClass().getSimpleName() + "." + method.getName();
+        PagePerformance.getInstance().setScenario(parameters.length == 0 ? scenario
+                : scenario + Arrays.deepToString(parameters));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void releaseDriver() {
+        driverPool.release();
+    }
+
+    // Browser leased by the current test thread
+    protected WebDriver getDriver() {
+        return DriverPool.current();
+    }
+
+    // Run one row of a parallel data provider. Rows run on TestNG worker threads
+    // that hold no class lease, so each row leases its own browser and returns it
+    protected <T> T withRowDriver(Function<WebDriver, T> row) {
+        if (driverPool.leasedByCurrentThread() != null) {
+            return row.apply(getDriver());
+        }
+        WebDriver driver = driverPool.lease();
+        try {
+            if (!driver.getCurrentUrl().startsWith("http")) {
+                driver.get(Constants.BASE_URL);
+            }
+            return row.apply(driver);
+        } finally {
+            driverPool.release(driver);
+        }
+    }
+
+    // Load a saved browser state, or run the setup flow on the leased browser and save
+    // the state it leaves behind. Classes needing the same state build it only once
+    protected BrowserState loadOrCaptureState(String name, Consumer<WebDriver> setupFlow) {
+        synchronized (STATE_LOCKS.computeIfAbsent(name, key -> new Object())) {
+            Path file = STATE_DIR.resolve(name + ".json");
+            if (Files.isRegularFile(file)) {
+                try {
+                    BrowserState state = BrowserState.load(file);
+                    if (!state.isOlderThan(STATE_MAX_AGE)) {
+                        System.out.println("✓ Reusing saved browser state '" + name + "'");
+                        return state;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Warning: ignoring unreadable browser state " + file + " - " + e.getMessage());
+                }
+            }
+
+            long start = System.nanoTime();
+            setupFlow.accept(getDriver());
+            BrowserState state = BrowserState.capture(getDriver());
+            try {
+                state.save(file);
+            } catch (IOException e) {
+                System.err.println("Failed to save browser state: " + e.getMessage());
+            }
+            System.out.println("✓ Captured browser state '" + name + "' (" + state.getCookieCount() + " cookies) in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return state;
+        }
+    }
+
+    // Give the current test a clean session holding only the saved state
+    protected void restoreState(BrowserState state) {
+        restoreState(state, getDriver());
+    }
+
+    // Same, on a browser leased for one data row
+    protected void restoreState(BrowserState state, WebDriver driver) {
+        long start = System.nanoTime();
+        DriverFactory.resetSession(driver);
+        state.restore(driver);
+        System.out.println("✓ Browser state restored in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    // Seed the cart over HTTP when -Dcart.setup=api and open the storefront with it;
+    // returns false when the UI add-to-cart flow should be used instead
+    protected boolean seedCartViaApi() {
+        CartSeeder seeder = CartSeeder.fromSystemProperties();
+        if (seeder == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            seeder.addProducts(CartSeeder.configuredProducts());
+        } catch (IOException e) {
+            throw new IllegalStateException("API cart seeding failed: " + e.getMessage(), e);
+        }
+        seeder.injectInto(getDriver());
+        getDriver().get(Constants.BASE_URL);
+        System.out.println("✓ Cart seeded over HTTP with " + seeder.getQuantityTotal() + " item(s) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return true;
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void tearDownSuite() {
+        ScreenshotService.getInstance().flush(60);
+        WaitMetrics.getInstance().export(new File(Constants.REPORT_DIR), "WaitMetrics_" + System.currentTimeMillis());
+        PagePerformance.getInstance().close();
+        driverPool.shutdown();
+        System.out.println("✓ Browsers closed after entire test suite");
     }
-}
\ No newline at end of file
+}
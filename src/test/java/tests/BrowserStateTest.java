@@ -0,0 +1,59 @@
+package tests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import utils.BrowserState;
+
+// Runs fully offline: checks the saved snapshot format without a browser
+public class BrowserStateTest {
+
+    private Path dir;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("browser-state");
+    }
+
+    @Test(description = "A saved state loads back with its URL, cookies and age")
+    public void testSaveAndLoadRoundTrip() throws Exception {
+        Path original = dir.resolve("original.json");
+        Files.write(original, ("{\"url\": \"https://www.bose.com/checkout\", \"capturedAt\": "
+                + System.currentTimeMillis() + ", \"cookies\": [{\"name\": \"dwsid\", \"value\": \"abc\","
+                + " \"domain\": \".bose.com\", \"path\": \"/\"}], \"storage\": {\"https://www.bose.com\":"
+                + " {\"local\": {\"cart\": \"3\"}, \"session\": {}}}}").getBytes(StandardCharsets.UTF_8));
+
+        BrowserState state = BrowserState.load(original);
+        Path copy = dir.resolve("nested/copy.json");
+        state.save(copy);
+        BrowserState reloaded = BrowserState.load(copy);
+
+        Assert.assertEquals(reloaded.getUrl(), "https://www.bose.com/checkout");
+        Assert.assertEquals(reloaded.getCookieCount(), 1);
+        Assert.assertFalse(reloaded.isOlderThan(Duration.ofMinutes(1)));
+        Assert.assertTrue(new String(Files.readAllBytes(copy), StandardCharsets.UTF_8).contains("\"cart\""),
+                "Storage should be written back out");
+    }
+
+    @Test(description = "A truncated snapshot is rejected instead of restoring half a state",
+            expectedExceptions = IOException.class)
+    public void testIncompleteStateRejected() throws Exception {
+        Path file = dir.resolve("incomplete.json");
+        Files.write(file, "{\"url\": \"https://www.bose.com\"}".getBytes(StandardCharsets.UTF_8));
+        BrowserState.load(file);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+}
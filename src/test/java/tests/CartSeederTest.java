@@ -0,0 +1,148 @@
+package tests;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpCookie;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import utils.CartSeeder;
+
+// Runs fully offline against a local stub of the storefront's Cart-AddProduct controller
+public class CartSeederTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final Map<String, Integer> carts = new ConcurrentHashMap<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    @BeforeClass
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(CartSeeder.DEFAULT_ADD_PATH, this::addProduct);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // Mimics the storefront: a dwsid cookie identifies the basket, the reply is JSON
+    private void addProduct(HttpExchange exchange) throws IOException {
+        try {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            Map<String, String> form = new HashMap<>();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            for (String pair : body.split("&")) {
+                String[] parts = pair.split("=", 2);
+                form.put(parts[0], parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+            }
+
+            String sessionId = null;
+            String cookieHeader = exchange.getRequestHeaders().getFirst("Cookie");
+            if (cookieHeader != null && cookieHeader.contains("dwsid=")) {
+                sessionId = cookieHeader.substring(cookieHeader.indexOf("dwsid=") + 6).split(";")[0];
+            }
+            if (sessionId == null) {
+                sessionId = "session-" + sessions.incrementAndGet();
+                exchange.getResponseHeaders().add("Set-Cookie", "dwsid=" + sessionId + "; Path=/; HttpOnly");
+            }
+
+            String json;
+            int status = 200;
+            if ("BROKEN".equals(form.get("pid"))) {
+                status = 500;
+                json = "{}";
+            } else if ("SOLD-OUT".equals(form.get("pid"))) {
+                json = "{\"error\": true, \"message\": \"Out of stock\"}";
+            } else {
+                int total = carts.merge(sessionId, Integer.parseInt(form.get("quantity")), Integer::sum);
+                json = "{\"error\": false, \"quantityTotal\": " + total + "}";
+            }
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Test(description = "Products accumulate in one basket over a reused connection")
+    public void testSeedsOneBasket() throws Exception {
+        clientPorts.clear();
+        Map<String, Integer> products = new LinkedHashMap<>();
+        products.put("HEADPHONES-1", 1);
+        products.put("SPEAKER-1", 1);
+        products.put("EARBUDS-1", 2);
+
+        long start = System.nanoTime();
+        CartSeeder seeder = new CartSeeder(baseUrl).addProducts(products);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        Assert.assertEquals(seeder.getQuantityTotal(), 4);
+        Assert.assertEquals(clientPorts.size(), 1, "Requests should share one pooled connection");
+        System.out.println("✓ Seeded 3 products against the stub in " + millis + " ms");
+
+        List<HttpCookie> cookies = seeder.getSessionCookies();
+        Assert.assertEquals(cookies.size(), 1);
+        Assert.assertEquals(cookies.get(0).getName(), "dwsid");
+        Assert.assertEquals(cookies.get(0).getDomain(), "127.0.0.1");
+        Assert.assertEquals(cookies.get(0).getPath(), "/");
+        Assert.assertEquals(carts.get(cookies.get(0).getValue()), Integer.valueOf(4));
+    }
+
+    @Test(description = "Separate seeders get separate baskets")
+    public void testSeedersAreIsolated() throws Exception {
+        CartSeeder first = new CartSeeder(baseUrl).addProduct("SPEAKER-1", 1);
+        CartSeeder second = new CartSeeder(baseUrl).addProduct("SPEAKER-1", 1);
+
+        Assert.assertEquals(first.getQuantityTotal(), 1);
+        Assert.assertEquals(second.getQuantityTotal(), 1);
+        Assert.assertNotEquals(first.getSessionCookies().get(0).getValue(),
+                second.getSessionCookies().get(0).getValue());
+    }
+
+    @Test(description = "A storefront error message fails the setup", expectedExceptions = IOException.class,
+            expectedExceptionsMessageRegExp = ".*Out of stock.*")
+    public void testStorefrontErrorFails() throws Exception {
+        new CartSeeder(baseUrl).addProduct("SOLD-OUT", 1);
+    }
+
+    @Test(description = "An HTTP error fails the setup", expectedExceptions = IOException.class)
+    public void testHttpErrorFails() throws Exception {
+        new CartSeeder(baseUrl).addProduct("BROKEN", 1);
+    }
+
+    @Test(description = "Configured products parse as pid[:quantity]")
+    public void testConfiguredProducts() {
+        System.setProperty("cart.seedProducts", "A, B:2, A");
+        try {
+            Map<String, Integer> products = CartSeeder.configuredProducts();
+            Assert.assertEquals(products.toString(), "{A=2, B=2}");
+        } finally {
+            System.clearProperty("cart.seedProducts");
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStub() {
+        server.stop(0);
+    }
+}
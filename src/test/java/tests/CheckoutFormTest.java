@@ -1,20 +1,55 @@
 package tests;
 
+import java.lang.reflect.Method;
+
+import org.openqa.selenium.WebDriver;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.testng.asserts.SoftAssert;
 
+import pages.CartPage;
 import pages.CheckoutPage;
+import pages.HomePage;
+import utils.BrowserState;
+import utils.Constants;
+import utils.TestDataProvider;
 
 public class CheckoutFormTest extends BaseTest {
 
+    private BrowserState checkoutState;
     private CheckoutPage checkoutPage;
 
     @BeforeClass
     public void setUp() {
-        checkoutPage = new CheckoutPage(driver);
-        System.out.println("✓ CheckoutFormTest initialized - continuing from cart state");
+        // Build the cart once (or reuse a recent snapshot) instead of depending on ShoppingCartTest
+        checkoutState = loadOrCaptureState("checkout", this::buildCartAndOpenCheckout);
+        System.out.println("✓ CheckoutFormTest initialized from saved cart state");
+    }
+
+    // Every scenario starts from a fresh copy of the populated cart on the checkout page
+    // Data-driven rows run on provider threads and restore the state on their own browser
+    @BeforeMethod
+    public void restoreCheckout(Method method) {
+        if (!method.getAnnotation(Test.class).dataProvider().isEmpty()) {
+            return;
+        }
+        restoreState(checkoutState);
+        checkoutPage = new CheckoutPage(getDriver()).waitForCheckoutForm();
+    }
+
+    private void buildCartAndOpenCheckout(WebDriver driver) {
+        if (!seedCartViaApi()) {
+            HomePage homePage = new HomePage(driver);
+            String[] categories = {Constants.CATEGORY_HEADPHONES, Constants.CATEGORY_SPEAKERS, Constants.CATEGORY_EARBUDS};
+            for (String category : categories) {
+                homePage.goToHomePage(Constants.BASE_URL);
+                homePage.selectCategory(category).addProductToCartByIndex(0);
+            }
+        }
+        new CartPage(driver).openCart().clickCheckout();
+        new CheckoutPage(driver).waitForCheckoutForm();
     }
 
     @Test(priority = 3, description = "Verify all required field errors when submitting empty form")
@@ -150,4 +185,30 @@ public class CheckoutFormTest extends BaseTest {
         
         System.out.println("✓ Valid form submitted successfully");
     }
+
+    @Test(priority = 8, dataProvider = "checkoutInputsFromFile", dataProviderClass = TestDataProvider.class,
+          description = "Verify each checkout input row is accepted or rejected as expected")
+    public void testCheckoutInputsFromFile(String email, String firstName, String lastName, String address,
+                                           String city, String country, String state, String zip, String phone,
+                                           Boolean expectedValid) {
+        // Rows run in parallel, each on its own pooled browser
+        boolean accepted = withRowDriver(driver -> {
+            restoreState(checkoutState, driver);
+            CheckoutPage page = new CheckoutPage(driver).waitForCheckoutForm()
+                    .fillCompleteForm(email, firstName, lastName, address, city, country, state, zip, phone)
+                    .waitForZipFieldEnabled()
+                    .clickContinueToPayment();
+            if (expectedValid) {
+                page.waitForPageTransition();
+            } else {
+                page.waitForValidationErrors();
+            }
+            return page.isOnPaymentPage();
+        });
+
+        Assert.assertEquals(accepted, expectedValid.booleanValue(),
+            "Checkout with email '" + email + "', ZIP '" + zip + "' should be "
+                + (expectedValid ? "accepted" : "rejected"));
+        System.out.println("✓ Checkout row " + email + " / " + zip + " " + (accepted ? "accepted" : "rejected"));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package tests;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import utils.DataRows;
+import utils.TestDataProvider;
+
+// Runs fully offline: checks the lazy row generators behind TestDataProvider
+public class DataRowsTest {
+
+    @Test(description = "Combinations enumerate the full product, last axis fastest")
+    public void testCombinationsOrder() {
+        List<Object[]> rows = drain(DataRows.combinations(Arrays.asList("a", "b"), Arrays.asList(1, 2, 3)));
+
+        Assert.assertEquals(rows.size(), 6);
+        Assert.assertEquals(rows.get(0), new Object[]{"a", 1});
+        Assert.assertEquals(rows.get(2), new Object[]{"a", 3});
+        Assert.assertEquals(rows.get(3), new Object[]{"b", 1});
+        Assert.assertEquals(rows.get(5), new Object[]{"b", 3});
+        Assert.assertFalse(DataRows.combinations(Arrays.asList("a"), new ArrayList<>()).hasNext(),
+                "An empty axis should produce no rows");
+    }
+
+    @Test(description = "Rows are built only as they are pulled")
+    public void testRowsAreLazy() {
+        AtomicInteger built = new AtomicInteger();
+        List<Integer> big = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            big.add(i);
+        }
+        Iterator<Object[]> rows = DataRows.map(DataRows.combinations(big, big, big), row -> {
+            built.incrementAndGet();
+            return row;
+        });
+
+        Iterator<Object[]> firstTwo = DataRows.limit(rows, 2);
+        Assert.assertEquals(drain(firstTwo).size(), 2);
+        Assert.assertEquals(built.get(), 2, "Only the pulled rows of a billion should be built");
+    }
+
+    @Test(description = "CSV rows skip comments and the header and are trimmed")
+    public void testCsvStreaming() throws Exception {
+        Path file = Files.createTempFile("rows", ".csv");
+        try {
+            Files.write(file, Arrays.asList("# comment", "name, qty", "", "Speakers, 2", "Earbuds,1"),
+                    StandardCharsets.UTF_8);
+            List<Object[]> rows = drain(DataRows.csv(file));
+
+            Assert.assertEquals(rows.size(), 2);
+            Assert.assertEquals(rows.get(0), new Object[]{"Speakers", "2"});
+            Assert.assertEquals(rows.get(1), new Object[]{"Earbuds", "1"});
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(description = "The bundled checkout CSV parses with a boolean expectation column")
+    public void testCheckoutInputsFile() {
+        List<Object[]> rows = drain(TestDataProvider.getCheckoutInputsFromFile());
+
+        Assert.assertFalse(rows.isEmpty());
+        for (Object[] row : rows) {
+            Assert.assertEquals(row.length, 10);
+            Assert.assertTrue(row[9] instanceof Boolean);
+        }
+    }
+
+    private static List<Object[]> drain(Iterator<Object[]> rows) {
+        List<Object[]> all = new ArrayList<>();
+        rows.forEachRemaining(all::add);
+        return all;
+    }
+}
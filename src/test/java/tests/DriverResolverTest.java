@@ -0,0 +1,161 @@
+package tests;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import utils.DriverResolver;
+
+// Runs fully offline: every resolver uses driver.offline and a manifest in a temporary directory
+public class DriverResolverTest {
+
+    private static final String DRIVER_PROPERTY = "webdriver.chrome.driver";
+
+    private File dir;
+    private Path manifest;
+    private Path binary;
+    private String previousDriver;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        previousDriver = System.clearProperty(DRIVER_PROPERTY);
+        dir = Files.createTempDirectory("driver").toFile();
+        manifest = new File(dir, "chromedriver.properties").toPath();
+        binary = new File(dir, "chromedriver").toPath();
+        Files.write(binary, "#!/bin/sh\n".getBytes(StandardCharsets.UTF_8));
+        binary.toFile().setExecutable(true);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws Exception {
+        if (previousDriver == null) {
+            System.clearProperty(DRIVER_PROPERTY);
+        } else {
+            System.setProperty(DRIVER_PROPERTY, previousDriver);
+        }
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test(description = "A verified pin is used without the network, also when the browser can't be detected")
+    public void testPinnedDriverIsUsed() throws Exception {
+        pin("120.0.6099.109");
+        Assert.assertEquals(resolver("120.0.6099.71").resolveChromeDriver(), binary);
+        Assert.assertEquals(System.getProperty(DRIVER_PROPERTY), binary.toString());
+        Assert.assertEquals(resolver(null).resolveChromeDriver(), binary);
+    }
+
+    @Test(description = "Offline mode fails clearly without a pin, with a bad checksum or after a Chrome update")
+    public void testOfflineFailures() throws Exception {
+        assertOfflineFailure(resolver("120.0.6099.71"), "No verified chromedriver");
+
+        pin("120.0.6099.109");
+        assertOfflineFailure(resolver("121.0.6167.85"), "Installed Chrome 121.0.6167.85 does not match");
+
+        Files.write(binary, "tampered".getBytes(StandardCharsets.UTF_8));
+        assertOfflineFailure(resolver("120.0.6099.71"), "No verified chromedriver");
+    }
+
+    @Test(description = "The browser version of the first session is recorded in the manifest")
+    public void testRecordBrowserVersion() throws Exception {
+        pin("120.0.6099.109");
+        DriverResolver resolver = resolver("120.0.6099.71");
+        resolver.recordBrowserVersion("120.0.6099.71");
+        Assert.assertEquals(load().getProperty("browserVersion"), "120.0.6099.71");
+        Assert.assertEquals(load().getProperty("driverVersion"), "120.0.6099.109");
+    }
+
+    @Test(description = "An unchanged pin is trusted by size and time; a touched one is checksummed again")
+    public void testChecksumOnlyWhenBinaryChanged() throws Exception {
+        pin("120.0.6099.109");
+        Assert.assertEquals(resolver("120.0.6099.71").resolveChromeDriver(), binary);
+        Properties stamped = load();
+        Assert.assertEquals(stamped.getProperty("driverSize"), String.valueOf(Files.size(binary)));
+
+        // A stale checksum goes unnoticed while the stamps match, so the file is not re-read
+        stamped.setProperty("sha256", "0");
+        try (OutputStream out = Files.newOutputStream(manifest)) {
+            stamped.store(out, null);
+        }
+        Assert.assertEquals(resolver("120.0.6099.71").resolveChromeDriver(), binary);
+
+        binary.toFile().setLastModified(binary.toFile().lastModified() - 60_000);
+        assertOfflineFailure(resolver("120.0.6099.71"), "No verified chromedriver");
+    }
+
+    @Test(description = "The browser version is detected once per browser binary, and again after it changes")
+    public void testBrowserVersionCachedPerBinary() throws Exception {
+        pin("120.0.6099.109");
+        Path chrome = new File(dir, "chrome").toPath();
+        Files.write(chrome, new byte[]{1});
+        AtomicInteger detections = new AtomicInteger();
+        String[] version = {"120.0.6099.71"};
+        Supplier<DriverResolver> resolver = () -> new DriverResolver(manifest, true, () -> chrome, path -> {
+            detections.incrementAndGet();
+            return version[0];
+        });
+
+        resolver.get().resolveChromeDriver();
+        resolver.get().resolveChromeDriver();
+        Assert.assertEquals(detections.get(), 1);
+
+        // Chrome auto-updates: the binary changes and the new version no longer matches the pin
+        version[0] = "121.0.6167.85";
+        chrome.toFile().setLastModified(chrome.toFile().lastModified() + 60_000);
+        assertOfflineFailure(resolver.get(), "Installed Chrome 121.0.6167.85 does not match");
+        Assert.assertEquals(detections.get(), 2);
+    }
+
+    private DriverResolver resolver(String installedVersion) {
+        return new DriverResolver(manifest, true, () -> installedVersion);
+    }
+
+    private void assertOfflineFailure(DriverResolver resolver, String message) {
+        // An earlier successful resolution set the explicit driver, which would win
+        System.clearProperty(DRIVER_PROPERTY);
+        try {
+            resolver.resolveChromeDriver();
+            Assert.fail("Expected offline resolution to fail");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().startsWith(message), e.getMessage());
+        }
+    }
+
+    private void pin(String driverVersion) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("driverPath", binary.toString());
+        properties.setProperty("driverVersion", driverVersion);
+        properties.setProperty("sha256", sha256(binary));
+        try (OutputStream out = Files.newOutputStream(manifest)) {
+            properties.store(out, null);
+        }
+    }
+
+    private Properties load() throws Exception {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(manifest)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static String sha256(Path file) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
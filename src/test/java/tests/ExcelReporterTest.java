@@ -0,0 +1,67 @@
+package tests;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import utils.ExcelReporter;
+
+// Runs fully offline: writes a streaming report to a temporary directory and reads it back
+public class ExcelReporterTest {
+
+    @Test(description = "A streaming report far larger than the row window keeps every row, shared styles and column widths")
+    public void testStreamingReportRoundTrip() throws Exception {
+        int carts = 1500;
+        List<String> products = Arrays.asList("QuietComfort Headphones", "SoundLink Flex", "Bose Music Amplifier");
+        List<Long> priceCents = Arrays.asList(34900L, 14900L, 59900L);
+        List<Integer> quantities = Arrays.asList(1, 2, 1);
+
+        File dir = Files.createTempDirectory("report").toFile();
+        try {
+            ExcelReporter reporter = new ExcelReporter("Cart Price Validation", true);
+            for (int cart = 0; cart < carts; cart++) {
+                // Every tenth cart mismatches, so both outcome styles are used
+                long website = cart % 10 == 0 ? 124500 : 124600;
+                reporter.addCartData(products, priceCents, quantities, 124600, website, -1);
+            }
+            File report = new File(dir, "CartPriceValidation.xlsx");
+            reporter.saveReport(report.getPath());
+
+            try (Workbook workbook = WorkbookFactory.create(report, null, true)) {
+                Sheet sheet = workbook.getSheet("Cart Price Validation");
+                // Header, then three lines and a total per cart
+                Assert.assertEquals(sheet.getPhysicalNumberOfRows(), 1 + carts * 4);
+                Assert.assertEquals(sheet.getLastRowNum(), carts * 4);
+
+                Row lastLine = sheet.getRow(carts * 4 - 1);
+                Assert.assertEquals(lastLine.getCell(0).getStringCellValue(), "Item 3");
+                Assert.assertEquals(lastLine.getCell(3).getNumericCellValue(), 599.0);
+                Row firstTotal = sheet.getRow(4);
+                Assert.assertEquals(firstTotal.getCell(0).getStringCellValue(), "TOTAL");
+                Assert.assertEquals(firstTotal.getCell(6).getStringCellValue(), "NO");
+                Assert.assertEquals(sheet.getRow(carts * 4).getCell(6).getStringCellValue(), "YES");
+
+                // The default style plus bold, match and mismatch, however many rows were written
+                Assert.assertEquals(workbook.getNumCellStyles(), 4);
+                Assert.assertEquals(sheet.getRow(0).getCell(0).getCellStyle().getIndex(),
+                        firstTotal.getCell(0).getCellStyle().getIndex(), "Header and totals share the bold style");
+
+                // Widths come from the widest value per column, plus two characters of padding
+                Assert.assertEquals(sheet.getColumnWidth(0), ("Item #".length() + 2) * 256);
+                Assert.assertEquals(sheet.getColumnWidth(4), ("Calculated Total".length() + 2) * 256);
+                Assert.assertEquals(sheet.getColumnWidth(7), ("yyyy-MM-dd HH:mm:ss".length() + 2) * 256);
+            }
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package tests;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import utils.HttpSnapshotStore;
+
+// Runs fully offline: exercises the record/replay store without a browser
+public class HttpSnapshotStoreTest {
+
+    private Path storeDir;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        storeDir = Files.createTempDirectory("snapshot-store");
+    }
+
+    @Test(description = "Recorded responses survive reopening the store")
+    public void testRecordAndReplayAfterReopen() throws Exception {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("content-type", "text/html");
+        headers.put("set-cookie", "a=1\nb=2");
+
+        HttpSnapshotStore store = new HttpSnapshotStore(storeDir);
+        store.record("GET", "https://www.bose.com/home", 200, headers,
+                "<html>home</html>".getBytes(StandardCharsets.UTF_8));
+
+        HttpSnapshotStore reopened = new HttpSnapshotStore(storeDir);
+        HttpSnapshotStore.Entry entry = reopened.lookup("GET", "https://www.bose.com/home");
+        Assert.assertNotNull(entry, "Recorded response should be found after reopening");
+        Assert.assertEquals(entry.getStatus(), 200);
+        Assert.assertEquals(entry.getHeaders().get("set-cookie"), "a=1\nb=2");
+        Assert.assertEquals(new String(reopened.readBody(entry), StandardCharsets.UTF_8), "<html>home</html>");
+        Assert.assertNull(reopened.lookup("POST", "https://www.bose.com/home"), "Method is part of the key");
+    }
+
+    @Test(description = "Cache-buster parameters and fragments don't affect matching")
+    public void testIgnoredParamsAreNotMatched() throws Exception {
+        HttpSnapshotStore store = new HttpSnapshotStore(storeDir);
+        store.record("GET", "https://www.bose.com/cart?x=1&_=123", 200, new LinkedHashMap<>(), new byte[] {1});
+
+        Assert.assertNotNull(store.lookup("GET", "https://www.bose.com/cart?x=1&_=999#top"));
+        Assert.assertNull(store.lookup("GET", "https://www.bose.com/cart?x=2"));
+    }
+
+    @Test(description = "POSTs to one URL with different bodies replay their own responses")
+    public void testPostBodiesArePartOfTheKey() throws Exception {
+        String url = "https://www.bose.com/cart/update";
+        byte[] addOne = "{\"sku\":\"QC45\",\"qty\":1}".getBytes(StandardCharsets.UTF_8);
+        byte[] addTwo = "{\"sku\":\"QC45\",\"qty\":2}".getBytes(StandardCharsets.UTF_8);
+        HttpSnapshotStore store = new HttpSnapshotStore(storeDir);
+        store.record("POST", url, addOne, 200, new LinkedHashMap<>(), "one".getBytes(StandardCharsets.UTF_8));
+        store.record("POST", url, addTwo, 200, new LinkedHashMap<>(), "two".getBytes(StandardCharsets.UTF_8));
+
+        HttpSnapshotStore reopened = new HttpSnapshotStore(storeDir);
+        Assert.assertEquals(new String(reopened.readBody(reopened.lookup("POST", url, addOne)), StandardCharsets.UTF_8),
+                "one");
+        Assert.assertEquals(new String(reopened.readBody(reopened.lookup("POST", url, addTwo)), StandardCharsets.UTF_8),
+                "two");
+        Assert.assertNull(reopened.lookup("POST", url, "{}".getBytes(StandardCharsets.UTF_8)),
+                "An unrecorded body is not replayed");
+        Assert.assertNull(reopened.lookup("POST", url), "A bodiless POST is a different request");
+    }
+
+    @Test(description = "Identical bodies are stored once")
+    public void testBodiesAreDeduplicated() throws Exception {
+        HttpSnapshotStore store = new HttpSnapshotStore(storeDir);
+        byte[] logo = "same-image-bytes".getBytes(StandardCharsets.UTF_8);
+        store.record("GET", "https://cdn.bose.com/a/logo.png", 200, new LinkedHashMap<>(), logo);
+        store.record("GET", "https://cdn.bose.com/b/logo.png", 200, new LinkedHashMap<>(), logo);
+
+        String hash = sha256Hex(logo);
+        File[] bodies = storeDir.resolve("bodies").toFile().listFiles((dir, name) -> name.equals(hash));
+        Assert.assertEquals(bodies.length, 1);
+    }
+
+    private static String sha256Hex(byte[] data) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : java.security.MessageDigest.getInstance("SHA-256").digest(data)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(storeDir.toFile());
+    }
+}
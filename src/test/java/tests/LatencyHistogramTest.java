@@ -0,0 +1,105 @@
+package tests;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.TypeToken;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import utils.LatencyHistogram;
+import utils.WaitMetrics;
+
+// Runs fully offline: records synthetic wait durations
+public class LatencyHistogramTest {
+
+    @Test(description = "Small values are exact and larger percentiles stay within one sub-bucket")
+    public void testPercentiles() {
+        LatencyHistogram empty = new LatencyHistogram();
+        Assert.assertEquals(empty.getPercentileMicros(99), 0);
+        Assert.assertEquals(empty.getMeanMicros(), 0.0);
+
+        LatencyHistogram small = new LatencyHistogram();
+        for (long micros = 1; micros <= 10; micros++) {
+            small.recordMicros(micros);
+        }
+        small.recordMicros(-5);
+        Assert.assertEquals(small.getCount(), 11);
+        Assert.assertEquals(small.getPercentileMicros(0), 0, "Negative durations count as zero");
+        Assert.assertEquals(small.getPercentileMicros(50), 5);
+        Assert.assertEquals(small.getPercentileMicros(100), 10);
+        Assert.assertEquals(small.getMeanMicros(), 55 / 11.0, 1e-9);
+
+        LatencyHistogram large = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            large.recordMicros(micros);
+        }
+        for (double percentile : new double[]{50, 90, 95, 99, 99.9}) {
+            long exact = (long) Math.ceil(100_000 * percentile / 100);
+            long reported = large.getPercentileMicros(percentile);
+            Assert.assertTrue(reported >= exact && reported <= exact * 1.0625,
+                    "p" + percentile + " was " + reported + ", exact " + exact);
+        }
+        Assert.assertEquals(large.getPercentileMicros(100), 100_000, "Capped at the observed max");
+        Assert.assertEquals(large.getMaxMicros(), 100_000);
+    }
+
+    @Test(description = "Concurrent recorders lose no samples")
+    public void testConcurrentRecording() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            threads.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.recordMicros(1500);
+                }
+            });
+        }
+        threads.shutdown();
+        Assert.assertTrue(threads.awaitTermination(30, TimeUnit.SECONDS));
+        Assert.assertEquals(histogram.getCount(), 40_000);
+        Assert.assertEquals(histogram.getMeanMicros(), 1500.0);
+        Assert.assertEquals(histogram.getPercentileMicros(50), 1500);
+    }
+
+    @Test(description = "Wait metrics export slowest keys first as JSON and quoted CSV")
+    public void testWaitMetricsExport() throws Exception {
+        WaitMetrics metrics = new WaitMetrics();
+        for (int i = 0; i < 3; i++) {
+            metrics.record("CartPage", "waitForElement", "By.id: cart", 2_000_000, WaitMetrics.Outcome.HIT, 1);
+        }
+        metrics.record("CheckoutPage", "waitForAnyElementVisible", "By.cssSelector: .error, .alert",
+                10_000_000, WaitMetrics.Outcome.TIMEOUT, 20);
+
+        File dir = Files.createTempDirectory("waits").toFile();
+        try {
+            metrics.export(dir, "WaitMetrics");
+
+            List<String> csv = Files.readAllLines(new File(dir, "WaitMetrics.csv").toPath(), StandardCharsets.UTF_8);
+            Assert.assertEquals(csv, Arrays.asList(
+                    "page,wait,locator,count,hits,timeouts,exceptions,polls,totalMs,meanMs,p50Ms,p95Ms,p99Ms,maxMs",
+                    "CheckoutPage,waitForAnyElementVisible,\"By.cssSelector: .error, .alert\","
+                            + "1,0,1,0,20,10.0,10.0,10.0,10.0,10.0,10.0",
+                    "CartPage,waitForElement,By.id: cart,3,3,0,0,3,6.0,2.0,2.0,2.0,2.0,2.0"));
+
+            List<Map<String, Object>> json = new Json().toType(
+                    new String(Files.readAllBytes(new File(dir, "WaitMetrics.json").toPath()), StandardCharsets.UTF_8),
+                    new TypeToken<List<Map<String, Object>>>() { }.getType());
+            Assert.assertEquals(json.size(), 2);
+            Assert.assertEquals(json.get(0).get("locator"), "By.cssSelector: .error, .alert");
+            Assert.assertEquals(((Number) json.get(1).get("hits")).longValue(), 3);
+            Assert.assertEquals(((Number) json.get(1).get("p95Ms")).doubleValue(), 2.0);
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
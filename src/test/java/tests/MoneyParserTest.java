@@ -0,0 +1,68 @@
+package tests;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import utils.MoneyParser;
+
+public class MoneyParserTest {
+
+    @DataProvider(name = "prices")
+    public static Object[][] prices() {
+        return new Object[][] {
+            {"$279.00", 27900L},
+            {"279", 27900L},
+            {"$1,299.95", 129995L},
+            {"USD 1,299.9", 129990L},
+            {"1.234,56 €", 123456L},
+            {"€ 1 234,56", 123456L},
+            {"1 234,56 €", 123456L},
+            {"CHF 1'299.00", 129900L},
+            {"$1,234,567.89", 123456789L},
+            {"12,5", 1250L},
+            {"-$5.00", -500L},
+            {"$99.00 - $149.00", 9900L},
+            {"$99 to $149", 9900L},
+            {"$99.00 – $149.00", 9900L},
+            {"$349.00 $279.00", 27900L},
+            {"Was $349.00 Now $279.00", 27900L},
+            {"Estimated total: $837.00", 83700L},
+            // Counts next to a price are not prices
+            {"$837.00 (3 items)", 83700L},
+            {"$279.00 x 2", 27900L},
+            {"2 x $279.00", 27900L},
+            {"279 USD x 2", 27900L},
+            {"-$5.00 (1 item)", -500L}
+        };
+    }
+
+    @Test(dataProvider = "prices")
+    public void testParsesExactCents(String text, long expectedCents) {
+        Assert.assertEquals(MoneyParser.parseCents(text), expectedCents, "Parsing '" + text + "'");
+    }
+
+    @DataProvider(name = "malformed")
+    public static Object[][] malformed() {
+        return new Object[][] {
+            {""},
+            {"Free"},
+            {"$1,23,456.00"},
+            {"1.234.56"},
+            {"$12345678901234567890"},
+            {"279 2"}
+        };
+    }
+
+    @Test(dataProvider = "malformed", expectedExceptions = NumberFormatException.class)
+    public void testRejectsMalformedPrices(String text) {
+        MoneyParser.parseCents(text);
+    }
+
+    @Test
+    public void testFormatCents() {
+        Assert.assertEquals(MoneyParser.formatCents(123456), "1234.56");
+        Assert.assertEquals(MoneyParser.formatCents(5), "0.05");
+        Assert.assertEquals(MoneyParser.formatCents(-500), "-5.00");
+    }
+}
@@ -0,0 +1,66 @@
+package tests;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import utils.PagePerformance;
+
+// Runs fully offline: records navigations into a temporary performance log
+public class PagePerformanceTest {
+
+    @Test(description = "Each navigation is one JSON line tagged with page, action and the thread's scenario")
+    public void testRecordsAreTaggedPerThread() throws Exception {
+        File dir = Files.createTempDirectory("perf").toFile();
+        try {
+            PagePerformance performance = new PagePerformance(new File(dir, "Performance_test.jsonl"));
+            Assert.assertNull(performance.close(), "Nothing recorded, so no log");
+
+            performance.setScenario("CartTest.testOpenCart");
+            performance.record("HomePage", "goToHomePage", metrics(120.5, 900.0, 0.02));
+            Thread other = new Thread(() -> performance.record("CartPage", "openCart", metrics(80.0, 650.0, 0.0)));
+            other.start();
+            other.join();
+
+            File log = performance.close();
+            Assert.assertNotNull(log);
+            List<Map<String, Object>> lines = new ArrayList<>();
+            for (String line : Files.readAllLines(log.toPath(), StandardCharsets.UTF_8)) {
+                lines.add(new Json().toType(line, Json.MAP_TYPE));
+            }
+            Assert.assertEquals(lines.size(), 2);
+
+            Map<String, Object> home = lines.get(0);
+            Assert.assertEquals(home.get("page"), "HomePage");
+            Assert.assertEquals(home.get("action"), "goToHomePage");
+            Assert.assertEquals(home.get("scenario"), "CartTest.testOpenCart");
+            Assert.assertEquals(((Number) home.get("lcp")).doubleValue(), 900.0);
+            Assert.assertEquals(((Number) home.get("transferredBytes")).longValue(), 250_000L);
+
+            // The scenario belongs to the thread that set it
+            Assert.assertEquals(lines.get(1).get("scenario"), System.getProperty("perf.scenario", "none"));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    private static Map<String, Object> metrics(double ttfb, double lcp, double cls) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("url", "https://shop.example/");
+        metrics.put("ttfb", ttfb);
+        metrics.put("lcp", lcp);
+        metrics.put("cls", cls);
+        metrics.put("sameDocument", false);
+        metrics.put("transferredBytes", 250_000);
+        return metrics;
+    }
+}
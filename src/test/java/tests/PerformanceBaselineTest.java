@@ -0,0 +1,124 @@
+package tests;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import utils.PerformanceBaseline;
+import utils.PerformanceBaseline.Status;
+
+// Runs fully offline: builds a baseline history in a temporary file
+public class PerformanceBaselineTest {
+
+    private static final String STEP = "page.CartPage.openCart";
+
+    @Test(description = "Median and MAD ignore a single outlier")
+    public void testRobustStatistics() {
+        List<Double> runs = Arrays.asList(1000.0, 1040.0, 980.0, 1010.0, 5000.0);
+        double median = PerformanceBaseline.median(runs);
+        Assert.assertEquals(median, 1010.0);
+        Assert.assertEquals(PerformanceBaseline.mad(runs, median), 30.0);
+        Assert.assertEquals(PerformanceBaseline.median(Arrays.asList(1.0, 2.0, 3.0, 4.0)), 2.5);
+    }
+
+    @Test(description = "A step is judged only after enough runs, and only a significant slowdown regresses")
+    public void testRegressionNeedsHistoryAndSignificance() throws Exception {
+        File dir = Files.createTempDirectory("baseline").toFile();
+        try {
+            Path file = new File(dir, "perf-baseline.json").toPath();
+            Assert.assertEquals(baseline(file).evaluate(STEP, 1000).getStatus(), Status.NEW);
+
+            double[] history = {1000, 1040, 980, 1010, 1020, 990};
+            for (int run = 0; run < history.length; run++) {
+                PerformanceBaseline.append(file, "run-" + run, Collections.singletonMap(STEP, history[run]),
+                        Collections.singletonMap(STEP, 1));
+                if (run == 1) {
+                    Assert.assertEquals(baseline(file).evaluate(STEP, 5000).getStatus(), Status.LEARNING);
+                }
+            }
+
+            PerformanceBaseline baseline = baseline(file);
+            Assert.assertEquals(baseline.evaluate(STEP, 1060).getStatus(), Status.OK, "Within the noise");
+            PerformanceBaseline.Verdict doubled = baseline.evaluate(STEP, 2010);
+            Assert.assertEquals(doubled.getStatus(), Status.REGRESSION);
+            Assert.assertEquals(doubled.getDeltaPercent(), 100.0, 0.5);
+            Assert.assertEquals(baseline.evaluate(STEP, 600).getStatus(), Status.OK, "Faster is never a regression");
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test(description = "Budgets apply without history; shards of one run merge into one baseline entry")
+    @SuppressWarnings("unchecked")
+    public void testBudgetsAndShardMerge() throws Exception {
+        File dir = Files.createTempDirectory("baseline").toFile();
+        try {
+            Path budgets = new File(dir, "budgets.properties").toPath();
+            Files.write(budgets, Arrays.asList("# cart flow", STEP + "=1500", "page.Broken=fast"));
+            Path file = new File(dir, "perf-baseline.json").toPath();
+            PerformanceBaseline baseline = PerformanceBaseline.load(file, PerformanceBaseline.loadBudgets(budgets));
+            Assert.assertEquals(baseline.evaluate(STEP, 1400).getStatus(), Status.NEW);
+            Assert.assertEquals(baseline.evaluate(STEP, 1600).getStatus(), Status.OVER_BUDGET);
+
+            PerformanceBaseline.append(file, "run-1", Collections.singletonMap(STEP, 1000.0),
+                    Collections.singletonMap(STEP, 3));
+            PerformanceBaseline.append(file, "run-1", Collections.singletonMap(STEP, 2000.0),
+                    Collections.singletonMap(STEP, 1));
+            Map<String, Object> json = new Json().toType(
+                    new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.MAP_TYPE);
+            List<Map<String, Object>> runs = (List<Map<String, Object>>) ((Map<String, Object>) json.get("steps")).get(STEP);
+            Assert.assertEquals(runs.size(), 1);
+            Assert.assertEquals(((Number) runs.get(0).get("ms")).doubleValue(), 1250.0);
+            Assert.assertEquals(((Number) runs.get(0).get("samples")).intValue(), 4);
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test(description = "Threads of one JVM appending to the same baseline queue instead of failing")
+    @SuppressWarnings("unchecked")
+    public void testConcurrentAppendsInOneJvm() throws Exception {
+        File dir = Files.createTempDirectory("baseline").toFile();
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            Path file = new File(dir, "perf-baseline.json").toPath();
+            List<Future<?>> appends = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                appends.add(threads.submit(() -> {
+                    PerformanceBaseline.append(file, "run-1", Collections.singletonMap(STEP, 1000.0),
+                            Collections.singletonMap(STEP, 1));
+                    return null;
+                }));
+            }
+            for (Future<?> append : appends) {
+                append.get(30, TimeUnit.SECONDS);
+            }
+            Map<String, Object> json = new Json().toType(
+                    new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.MAP_TYPE);
+            List<Map<String, Object>> runs = (List<Map<String, Object>>) ((Map<String, Object>) json.get("steps")).get(STEP);
+            Assert.assertEquals(((Number) runs.get(0).get("samples")).intValue(), 20, "No append was lost");
+        } finally {
+            threads.shutdownNow();
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    private static PerformanceBaseline baseline(Path file) throws Exception {
+        return PerformanceBaseline.load(file, Collections.emptyMap());
+    }
+}
@@ -0,0 +1,156 @@
+package tests;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import utils.ExcelReporter;
+import utils.RunHistory;
+
+// Runs fully offline: builds a run history in a temporary directory
+public class RunHistoryTest {
+
+    @Test(description = "Validations and cart lines are appended and queried across runs")
+    public void testAppendAndQuery() throws Exception {
+        File dir = Files.createTempDirectory("history").toFile();
+        try {
+            RunHistory history = new RunHistory(dir.toPath());
+            long before = System.currentTimeMillis();
+            for (int run = 0; run < 2000; run++) {
+                // The speaker gets cheaper halfway; every tenth cart total disagrees with the site
+                long speaker = run < 1000 ? 27900 : 24900;
+                long total = 34900 + speaker * 2;
+                history.recordValidation(Arrays.asList("QuietComfort Headphones", "SoundLink Flex"),
+                        Arrays.asList(34900L, speaker), Arrays.asList(1, 2),
+                        total, run % 10 == 0 ? total + 1 : total, 1500);
+            }
+
+            // A crash mid-append leaves a partial record; it must not be read
+            try (RandomAccessFile validations = new RandomAccessFile(new File(dir, "validations.bin"), "rw")) {
+                validations.seek(validations.length());
+                validations.write(new byte[]{1, 2, 3});
+            }
+
+            RunHistory reopened = new RunHistory(dir.toPath());
+            long start = System.nanoTime();
+            List<RunHistory.Validation> validations = reopened.validations();
+            double matchRate = reopened.matchRate(before, Long.MAX_VALUE);
+            Map<String, RunHistory.PriceDrift> drift = reopened.priceDrift();
+            long queryMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("✓ Queried 2000 runs in " + queryMillis + " ms");
+
+            Assert.assertEquals(validations.size(), 2000);
+            Assert.assertEquals(validations.get(0).getLineCount(), 2);
+            Assert.assertEquals(validations.get(0).getDurationMillis(), 1500);
+            Assert.assertFalse(validations.get(0).isMatch());
+            Assert.assertEquals(matchRate, 0.9, 1e-9);
+
+            Assert.assertEquals(drift.keySet(), new LinkedHashSet<>(
+                    Arrays.asList("QuietComfort Headphones", "SoundLink Flex")));
+            RunHistory.PriceDrift speaker = drift.get("SoundLink Flex");
+            Assert.assertEquals(speaker.getObservations(), 2000);
+            Assert.assertEquals(speaker.getFirstCents(), 27900);
+            Assert.assertEquals(speaker.getLastCents(), 24900);
+            Assert.assertEquals(speaker.getPriceChanges(), 1);
+            Assert.assertEquals(drift.get("QuietComfort Headphones").getPriceChanges(), 0);
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test(description = "An append after a crash mid-write cuts the torn tail instead of misaligning later records")
+    public void testAppendAfterTornWrite() throws Exception {
+        File dir = Files.createTempDirectory("history").toFile();
+        try {
+            RunHistory history = new RunHistory(dir.toPath());
+            history.recordValidation(Arrays.asList("QuietComfort Headphones"), Arrays.asList(34900L),
+                    Arrays.asList(1), 34900, 34900, 1200);
+
+            for (String name : new String[]{"validations.bin", "lines.bin"}) {
+                try (RandomAccessFile file = new RandomAccessFile(new File(dir, name), "rw")) {
+                    file.seek(file.length());
+                    file.write(new byte[]{1, 2, 3, 4, 5});
+                }
+            }
+            Files.write(new File(dir, "products.txt").toPath(), "SoundLink Fl".getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+
+            RunHistory reopened = new RunHistory(dir.toPath());
+            reopened.recordValidation(Arrays.asList("SoundLink Flex", "QuietComfort Headphones"),
+                    Arrays.asList(27900L, 34900L), Arrays.asList(2, 1), 90700, 90700, 1300);
+
+            List<RunHistory.Validation> validations = reopened.validations();
+            Assert.assertEquals(validations.size(), 2);
+            Assert.assertEquals(validations.get(1).getCalculatedCents(), 90700);
+            Assert.assertEquals(validations.get(1).getLineCount(), 2);
+            Assert.assertEquals(validations.get(1).getDurationMillis(), 1300);
+            Assert.assertEquals(new File(dir, "lines.bin").length(), 3 * 32);
+
+            Assert.assertEquals(Files.readAllLines(new File(dir, "products.txt").toPath()),
+                    Arrays.asList("QuietComfort Headphones", "SoundLink Flex"));
+            Map<String, RunHistory.PriceDrift> drift = new RunHistory(dir.toPath()).priceDrift();
+            Assert.assertEquals(drift.get("SoundLink Flex").getLastCents(), 27900);
+            Assert.assertEquals(drift.get("QuietComfort Headphones").getObservations(), 2);
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test(description = "Old per-run workbooks import once and export as a trend workbook")
+    public void testImportAndExport() throws Exception {
+        File dir = Files.createTempDirectory("history").toFile();
+        try {
+            File reports = new File(dir, "reports");
+            for (long runId : new long[]{1764673358546L, 1764674583945L}) {
+                ExcelReporter reporter = new ExcelReporter("Cart Price Validation");
+                reporter.addCartData(Arrays.asList(349.0, 279.0), Arrays.asList(1, 2), 907.0, 907.0);
+                reporter.saveReport(new File(reports, "CartPriceValidation_" + runId + ".xlsx").getPath());
+            }
+
+            RunHistory history = new RunHistory(new File(dir, "history").toPath());
+            Assert.assertEquals(history.importWorkbooks(reports), 2);
+            Assert.assertEquals(history.importWorkbooks(reports), 0, "Imported runs are skipped");
+
+            List<RunHistory.Validation> validations = history.validations();
+            Assert.assertEquals(validations.size(), 2);
+            Assert.assertEquals(validations.get(0).getRunId(), 1764673358546L);
+            Assert.assertEquals(validations.get(0).getCalculatedCents(), 90700);
+            Assert.assertTrue(validations.get(0).isMatch());
+            Assert.assertTrue(validations.get(0).isImported());
+            Assert.assertTrue(history.priceDrift().isEmpty(), "Positional names of imported runs are not products");
+
+            history.recordValidation(Arrays.asList("QuietComfort Ultra Headphones"), Arrays.asList(42900L),
+                    Arrays.asList(1), 42900, 42900, 1200);
+            Assert.assertFalse(history.validations().get(2).isImported());
+            Assert.assertEquals(history.priceDrift().keySet(), Collections.singleton("QuietComfort Ultra Headphones"));
+
+            File trends = new File(dir, "trends.xlsx");
+            ExcelReporter.exportHistory(history, trends.getPath());
+            try (Workbook workbook = WorkbookFactory.create(trends, null, true)) {
+                Assert.assertEquals(workbook.getSheet("Runs").getLastRowNum(), 3);
+                Assert.assertEquals(workbook.getSheet("Price Drift").getRow(1).getCell(0).getStringCellValue(),
+                        "QuietComfort Ultra Headphones");
+            }
+
+            File csv = new File(dir, "trends.csv");
+            history.exportCsv(csv.toPath());
+            Assert.assertTrue(Files.readAllLines(csv.toPath())
+                    .contains("\"QuietComfort Ultra Headphones\",1,42900,42900,42900,42900,0"));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
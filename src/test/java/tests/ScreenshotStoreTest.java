@@ -0,0 +1,121 @@
+package tests;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import utils.ScreenshotStore;
+import utils.ScreenshotStore.Match;
+
+// Runs fully offline: stores generated page-like images in a temporary directory
+public class ScreenshotStoreTest {
+
+    @Test(description = "Repeated and noise-only captures reuse one image; a small real change is stored")
+    public void testDeduplication() throws Exception {
+        File dir = Files.createTempDirectory("screenshots").toFile();
+        try {
+            ScreenshotStore store = new ScreenshotStore(dir.toPath(), 2, 6);
+            BufferedImage page = page();
+
+            ScreenshotStore.Capture first = store.put("before_checkout_1.png", png(page));
+            Assert.assertEquals(first.getMatch(), Match.NEW);
+            Assert.assertTrue(Files.isRegularFile(first.getFile()));
+
+            ScreenshotStore.Capture repeat = store.put("before_checkout_2.png", png(page));
+            Assert.assertEquals(repeat.getMatch(), Match.EXACT);
+            Assert.assertEquals(repeat.getFile(), first.getFile());
+
+            ScreenshotStore.Capture noisy = store.put("before_checkout_3.png", png(withNoise(page, 3)));
+            Assert.assertEquals(noisy.getMatch(), Match.PERCEPTUAL, "Pixel noise alone should collapse");
+            Assert.assertEquals(noisy.getHash(), first.getHash());
+
+            // An 8x8 block changes, about the size of one changed price digit
+            BufferedImage changed = copy(page);
+            Graphics2D graphics = changed.createGraphics();
+            graphics.setColor(Color.BLACK);
+            graphics.fillRect(1000, 300, 8, 8);
+            graphics.dispose();
+            ScreenshotStore.Capture price = store.put("after_checkout_1.png", png(changed));
+            Assert.assertEquals(price.getMatch(), Match.NEW, "A real change must not be deduplicated");
+            Assert.assertEquals(store.getImageCount(), 2);
+
+            // Another JVM sharing the store sees both images and every capture
+            ScreenshotStore reopened = new ScreenshotStore(dir.toPath(), 2, 6);
+            Assert.assertEquals(reopened.getImageCount(), 2);
+            Assert.assertEquals(reopened.find("before_checkout_3.png"), first.getFile());
+            Assert.assertEquals(reopened.find("after_checkout_1.png"), price.getFile());
+            Assert.assertNull(reopened.find("missing.png"));
+            Assert.assertEquals(reopened.put("after_checkout_2.png", png(changed)).getMatch(), Match.EXACT);
+
+            try (Stream<Path> objects = Files.walk(dir.toPath().resolve("objects"))) {
+                Assert.assertEquals(objects.filter(Files::isRegularFile).count(), 2);
+            }
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    // A header bar, a product tile and text-like stripes on a light background
+    private static BufferedImage page() {
+        BufferedImage image = new BufferedImage(1280, 800, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(245, 245, 245));
+        graphics.fillRect(0, 0, 1280, 800);
+        graphics.setColor(new Color(20, 20, 20));
+        graphics.fillRect(0, 0, 1280, 80);
+        graphics.setColor(new Color(200, 210, 230));
+        graphics.fillRect(100, 150, 400, 400);
+        graphics.setColor(new Color(60, 60, 60));
+        for (int y = 160; y < 560; y += 24) {
+            graphics.fillRect(600, y, 500, 10);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage withNoise(BufferedImage source, int amplitude) {
+        BufferedImage noisy = copy(source);
+        Random random = new Random(7);
+        for (int y = 0; y < noisy.getHeight(); y++) {
+            for (int x = 0; x < noisy.getWidth(); x++) {
+                int rgb = noisy.getRGB(x, y);
+                int delta = random.nextInt(2 * amplitude + 1) - amplitude;
+                int r = clamp(((rgb >> 16) & 0xff) + delta);
+                int g = clamp(((rgb >> 8) & 0xff) + delta);
+                int b = clamp((rgb & 0xff) + delta);
+                noisy.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return noisy;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static BufferedImage copy(BufferedImage source) {
+        BufferedImage copy = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(source, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+
+    private static byte[] png(BufferedImage image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,109 @@
+package tests;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import utils.ExcelReporter;
+import utils.ShardRunner;
+
+// Runs fully offline: checks how a suite is split into shards and how shard reports merge
+public class ShardRunnerTest {
+
+    @Test(description = "Classes in one shard.group stay together and in suite order")
+    public void testGroupedClassesShareAShard() {
+        XmlSuite suite = suite();
+        List<XmlSuite> shards = ShardRunner.split(suite, 3, 2);
+
+        Assert.assertEquals(shards.size(), 3);
+        List<String> cartShard = null;
+        int totalClasses = 0;
+        for (XmlSuite shard : shards) {
+            Assert.assertEquals(shard.getThreadCount(), 2);
+            List<String> names = classNames(shard);
+            totalClasses += names.size();
+            if (names.contains("tests.ShoppingCartTest")) {
+                cartShard = names;
+            }
+        }
+        Assert.assertEquals(totalClasses, 5, "Every class should run exactly once");
+        Assert.assertNotNull(cartShard);
+        Assert.assertEquals(cartShard.subList(0, 2), Arrays.asList("tests.ShoppingCartTest", "tests.CheckoutFormTest"));
+    }
+
+    @Test(description = "Never more shards than units of work")
+    public void testShardCountCappedByUnits() {
+        Assert.assertEquals(ShardRunner.split(suite(), 10, 1).size(), 4);
+    }
+
+    @Test(description = "Shard workbooks merge into one workbook with labelled sheets")
+    public void testMergeWorkbooks() throws Exception {
+        File dir = Files.createTempDirectory("shard-reports").toFile();
+        try {
+            Map<String, File> workbooks = new LinkedHashMap<>();
+            for (int shard = 1; shard <= 2; shard++) {
+                ExcelReporter reporter = new ExcelReporter("Cart Price Validation");
+                reporter.addCartData(Arrays.asList(10.0, 20.0), Arrays.asList(1, 2), 50.0, 50.0);
+                File file = new File(dir, "shard" + shard + ".xlsx");
+                reporter.saveReport(file.getPath());
+                workbooks.put("S" + shard, file);
+            }
+            File merged = new File(dir, "merged/SuiteReport.xlsx");
+            ExcelReporter.mergeWorkbooks(workbooks, merged.getPath());
+
+            try (Workbook workbook = WorkbookFactory.create(merged)) {
+                Assert.assertEquals(workbook.getNumberOfSheets(), 2);
+                Assert.assertEquals(workbook.getSheetAt(0).getSheetName(), "S1 Cart Price Validation");
+                Assert.assertEquals(workbook.getSheetAt(1).getRow(3).getCell(4).getNumericCellValue(), 50.0);
+            }
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    private static XmlSuite suite() {
+        XmlSuite suite = new XmlSuite();
+        suite.setName("Suite");
+        suite.setParallel(XmlSuite.ParallelMode.CLASSES);
+        addTest(suite, "Cart", "cart-checkout", "tests.ShoppingCartTest");
+        addTest(suite, "Checkout", "cart-checkout", "tests.CheckoutFormTest");
+        addTest(suite, "Unit", null, "tests.A", "tests.B", "tests.C");
+        return suite;
+    }
+
+    private static void addTest(XmlSuite suite, String name, String group, String... classes) {
+        XmlTest test = new XmlTest(suite);
+        test.setName(name);
+        if (group != null) {
+            test.addParameter("shard.group", group);
+        }
+        List<XmlClass> xmlClasses = new ArrayList<>();
+        for (String className : classes) {
+            xmlClasses.add(new XmlClass(className, false));
+        }
+        test.setXmlClasses(xmlClasses);
+    }
+
+    private static List<String> classNames(XmlSuite shard) {
+        List<String> names = new ArrayList<>();
+        for (XmlTest test : shard.getTests()) {
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                names.add(xmlClass.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -12,6 +12,9 @@ import pages.CategoryPage;
 import pages.HomePage;
 import utils.Constants;
 import utils.ExcelReporter;
+import utils.MoneyParser;
+import utils.RunHistory;
+import utils.VisualBaseline;
 
 public class ShoppingCartTest extends BaseTest {
 
@@ -20,50 +23,57 @@ public class ShoppingCartTest extends BaseTest {
 
     @BeforeClass
     public void setUp() {
-        homePage = new HomePage(driver);
+        homePage = new HomePage(getDriver());
 
     }
 
     @Test(priority = 1)
     public void testAddItemsFromThreeCategories() {
+        long start = System.nanoTime();
         SoftAssert softAssert = new SoftAssert();
 
-        CategoryPage categoryPage = homePage.selectCategory("Headphones");
-        categoryPage.addProductToCartByIndex(0);
+        // Only the cart verification needs the UI; -Dcart.setup=api builds the cart over HTTP
+        if (!seedCartViaApi()) {
+            CategoryPage categoryPage = homePage.selectCategory("Headphones");
+            categoryPage.addProductToCartByIndex(0);
 
-        homePage.goToHomePage(Constants.BASE_URL);
-        categoryPage = homePage.selectCategory("Speakers");
-        categoryPage.addProductToCartByIndex(0);
+            homePage.goToHomePage(Constants.BASE_URL);
+            categoryPage = homePage.selectCategory("Speakers");
+            categoryPage.addProductToCartByIndex(0);
 
-        homePage.goToHomePage(Constants.BASE_URL);
-        categoryPage = homePage.selectCategory("Earbuds");
-        categoryPage.addProductToCartByIndex(0);
+            homePage.goToHomePage(Constants.BASE_URL);
+            categoryPage = homePage.selectCategory("Earbuds");
+            categoryPage.addProductToCartByIndex(0);
+        }
 
-        CartPage cartPage = new CartPage(driver);
+        CartPage cartPage = new CartPage(getDriver());
         cartPage.openCart().increaseQuantityByIndex(2);
 
-        List<Double> prices = cartPage.getItemPrices();
+        List<String> products = cartPage.getItemNames();
+        List<Long> priceCents = cartPage.getItemPricesInCents();
         List<Integer> quantities = cartPage.getItemQuantities();
 
-        double calculatedTotal = 0.0;
-        for (int i = 0; i < prices.size(); i++) {
-            calculatedTotal += prices.get(i);
+        // Exact cents arithmetic, no floating-point tolerance needed
+        long calculatedCents = 0;
+        for (long cents : priceCents) {
+            calculatedCents += cents;
         }
+        long websiteCents = cartPage.getTotalPriceInCents();
 
-        double websiteTotal = cartPage.getTotalPriceFromWebsite();
-        reporter = new ExcelReporter("Cart Price Validation");
-        reporter.addCartData(prices, quantities, calculatedTotal, websiteTotal);
+        reporter = new ExcelReporter("Cart Price Validation").withHistory(RunHistory.getDefault());
+        reporter.addCartData(products, priceCents, quantities, calculatedCents, websiteCents,
+                (System.nanoTime() - start) / 1_000_000);
 
         System.out.println("\n=== CART SUMMARY ===");
-        for (int i = 0; i < prices.size(); i++) {
-            System.out.println("Item " + (i + 1) + ": $" + prices.get(i) + " x " + quantities.get(i)
-                    + " = $" + (prices.get(i)));
+        for (int i = 0; i < priceCents.size(); i++) {
+            System.out.println("Item " + (i + 1) + ": $" + MoneyParser.formatCents(priceCents.get(i))
+                    + " x " + quantities.get(i) + " = $" + MoneyParser.formatCents(priceCents.get(i)));
         }
-        System.out.println("Calculated Total: $" + calculatedTotal);
-        System.out.println("Website Total: $" + websiteTotal);
-        System.out.println("Match: " + (Math.abs(calculatedTotal - websiteTotal) < 0.01 ? "YES" : "NO"));
+        System.out.println("Calculated Total: $" + MoneyParser.formatCents(calculatedCents));
+        System.out.println("Website Total: $" + MoneyParser.formatCents(websiteCents));
+        System.out.println("Match: " + (calculatedCents == websiteCents ? "YES" : "NO"));
 
-        softAssert.assertEquals(calculatedTotal, websiteTotal, 0.01,
+        softAssert.assertEquals(calculatedCents, websiteCents,
                 "Calculated total should match website total");
         softAssert.assertAll();
     }
@@ -71,24 +81,38 @@ public class ShoppingCartTest extends BaseTest {
     @Test(priority = 2, dependsOnMethods = "testAddItemsFromThreeCategories")
     public void testCheckoutScreenshots() {
         // Cart is already populated from first test
-        CartPage cartPage = new CartPage(driver);
+        CartPage cartPage = new CartPage(getDriver());
+
+        VisualBaseline visual = VisualBaseline.getInstance();
+        SoftAssert softAssert = new SoftAssert();
 
-        // Take screenshot BEFORE checkout
-        cartPage.takeScreenshot("before_checkout_" + System.currentTimeMillis() + ".png");
+        // Take screenshot BEFORE checkout and compare it with the approved baseline
+        byte[] before = cartPage.takeScreenshot("before_checkout_" + System.currentTimeMillis() + ".png");
+        softAssert.assertTrue(visual.matches("before_checkout", before), "Cart page differs from its baseline");
 
         // Click checkout button
         cartPage.clickCheckout();
 
         // Take screenshot AFTER checkout
-        cartPage.takeScreenshot("after_checkout_" + System.currentTimeMillis() + ".png");
+        byte[] after = cartPage.takeScreenshot("after_checkout_" + System.currentTimeMillis() + ".png");
+        softAssert.assertTrue(visual.matches("after_checkout", after), "Checkout page differs from its baseline");
 
         System.out.println("✓ Screenshots captured successfully!");
+        softAssert.assertAll();
     }
 
     @AfterClass
     public void tearDown() {
-        reporter.saveReport("test-reports/CartPriceValidation_"
-                + System.currentTimeMillis() + ".xlsx");
+        if (reporter == null) {
+            return;
+        }
+        // Validations go to the run history; a workbook per run only with -Dreport.xlsx=true
+        if (Boolean.getBoolean("report.xlsx")) {
+            reporter.saveReport(Constants.REPORT_DIR + "/CartPriceValidation_"
+                    + System.currentTimeMillis() + ".xlsx");
+        } else {
+            reporter.close();
+        }
 
         // if (driver != null) {
         //     driver.quit();
@@ -0,0 +1,130 @@
+package tests;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import pages.CartPage;
+import utils.TraceRecorder;
+
+// Runs fully offline: a page object drives a fake browser through the traced driver
+public class TraceRecorderTest {
+
+    @Test(description = "Page method, wait and WebDriver spans nest on one thread in the exported trace")
+    @SuppressWarnings("unchecked")
+    public void testPageWaitAndCommandSpans() throws Exception {
+        WebDriver traced = TraceRecorder.traced(fakeDriver());
+        Assert.assertTrue(traced instanceof JavascriptExecutor, "Tracing must keep the driver's interfaces");
+
+        Assert.assertEquals(new CartPage(traced).getCartItemCount(), 3);
+        // TraceListener does this when a test method ends
+        TraceRecorder.getInstance().closePageFrames();
+
+        File dir = Files.createTempDirectory("trace").toFile();
+        try {
+            File file = TraceRecorder.getInstance().export(dir, "Trace_test");
+            Map<String, Object> trace = new Json().toType(
+                    new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), Json.MAP_TYPE);
+            List<Map<String, Object>> events = (List<Map<String, Object>>) trace.get("traceEvents");
+
+            Map<String, Object> page = find(events, "page", "CartPage.getCartItemCount");
+            Map<String, Object> wait = find(events, "wait", "CartPage.findElement");
+            Map<String, Object> command = find(events, "webdriver", "WebElement.getText");
+            Assert.assertTrue(events.stream().anyMatch(event -> "M".equals(event.get("ph"))),
+                    "Thread names should be exported");
+
+            long tid = ((Number) page.get("tid")).longValue();
+            Assert.assertEquals(((Number) command.get("tid")).longValue(), tid);
+            Assert.assertTrue(encloses(page, wait), "Page span should cover its wait");
+            Assert.assertTrue(encloses(page, command), "Page span should cover its commands");
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test(description = "Typed text is exported only as its length")
+    @SuppressWarnings("unchecked")
+    public void testSendKeysValuesStayOutOfTrace() throws Exception {
+        WebDriver traced = TraceRecorder.traced(fakeDriver());
+        traced.findElement(By.id("email")).sendKeys("john.doe@example.com");
+
+        File dir = Files.createTempDirectory("trace").toFile();
+        try {
+            File file = TraceRecorder.getInstance().export(dir, "Trace_test");
+            String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            Assert.assertFalse(content.contains("john.doe"), "Typed text must not be exported");
+            Map<String, Object> trace = new Json().toType(content, Json.MAP_TYPE);
+            List<Map<String, Object>> events = (List<Map<String, Object>>) trace.get("traceEvents");
+            Map<String, Object> typed = find(events, "webdriver", "WebElement.sendKeys");
+            Assert.assertEquals(((Map<String, Object>) typed.get("args")).get("args"), "20 chars");
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    private static Map<String, Object> find(List<Map<String, Object>> events, String category, String name) {
+        List<Map<String, Object>> matches = new ArrayList<>();
+        for (Map<String, Object> event : events) {
+            if (category.equals(event.get("cat")) && name.equals(event.get("name"))) {
+                matches.add(event);
+            }
+        }
+        Assert.assertFalse(matches.isEmpty(), "No " + category + " span named " + name + " in " + events);
+        return matches.get(matches.size() - 1);
+    }
+
+    private static boolean encloses(Map<String, Object> outer, Map<String, Object> inner) {
+        double outerStart = ((Number) outer.get("ts")).doubleValue();
+        double outerEnd = outerStart + ((Number) outer.get("dur")).doubleValue();
+        double innerStart = ((Number) inner.get("ts")).doubleValue();
+        double innerEnd = innerStart + ((Number) inner.get("dur")).doubleValue();
+        return outerStart <= innerStart && innerEnd <= outerEnd;
+    }
+
+    // Browser stand-in: every element is displayed and reads "3"
+    private static WebDriver fakeDriver() {
+        WebElement element = (WebElement) Proxy.newProxyInstance(TraceRecorderTest.class.getClassLoader(),
+                new Class<?>[]{WebElement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getText":
+                            return "3";
+                        case "isDisplayed":
+                            return true;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+        return (WebDriver) Proxy.newProxyInstance(TraceRecorderTest.class.getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findElement":
+                            return element;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "FakeDriver";
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
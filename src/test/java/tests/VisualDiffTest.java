@@ -0,0 +1,184 @@
+package tests;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import utils.VisualBaseline;
+import utils.VisualDiff;
+
+// Runs fully offline: diffs generated page-like images
+public class VisualDiffTest {
+
+    @Test(description = "Changes beyond the tolerance are counted and marked; ignore regions are skipped")
+    public void testToleranceAndIgnoreRegions() throws Exception {
+        BufferedImage baseline = page(1280, 800);
+        Assert.assertEquals(new VisualDiff(0).compare(baseline, page(1280, 800)).getChangedPixels(), 0);
+        Assert.assertEquals(new VisualDiff(4).compare(baseline, shifted(baseline, 3)).getChangedPixels(), 0);
+        Assert.assertEquals(new VisualDiff(2).compare(baseline, shifted(baseline, 3)).getChangedRatio(), 1.0);
+
+        // A changed price: a 20x10 block of the totals column
+        BufferedImage changed = copy(baseline, BufferedImage.TYPE_INT_RGB);
+        fill(changed, new Rectangle(1000, 300, 20, 10), Color.BLACK);
+        VisualDiff.Result result = new VisualDiff(8).compare(baseline, changed);
+        Assert.assertEquals(result.getChangedPixels(), 200);
+        Assert.assertEquals(result.getChangedRatio(), 200.0 / (1280 * 800), 1e-12);
+        Assert.assertEquals(result.getMask().getRGB(1005, 305), 0xFFFF0000);
+        Assert.assertEquals(result.getMask().getRGB(10, 10), 0, "Unchanged pixels are transparent");
+
+        VisualDiff.Result ignored = new VisualDiff(8).ignore("990,295,40,20").compare(baseline, changed);
+        Assert.assertEquals(ignored.getChangedPixels(), 0);
+        Assert.assertEquals(ignored.getIgnoredPixels(), 800);
+        Assert.assertEquals(ignored.getComparedPixels(), 1280 * 800 - 800);
+    }
+
+    @Test(description = "Decoded PNG layouts compare equal, and a taller capture counts its extra rows as changed")
+    public void testImageLayoutsAndSizes() throws Exception {
+        BufferedImage rgb = page(640, 400);
+        BufferedImage bgr = ImageIO.read(new ByteArrayInputStream(png(copy(rgb, BufferedImage.TYPE_3BYTE_BGR))));
+        BufferedImage abgr = copy(rgb, BufferedImage.TYPE_4BYTE_ABGR);
+        BufferedImage rgb565 = copy(rgb, BufferedImage.TYPE_USHORT_565_RGB);
+        Assert.assertEquals(bgr.getType(), BufferedImage.TYPE_3BYTE_BGR);
+        Assert.assertEquals(new VisualDiff(0).compare(rgb, bgr).getChangedPixels(), 0);
+        Assert.assertEquals(new VisualDiff(0).compare(abgr, rgb).getChangedPixels(), 0);
+        // 5-6-5 colour loses the low bits of each channel
+        Assert.assertEquals(new VisualDiff(8).compare(rgb, rgb565).getChangedPixels(), 0);
+
+        BufferedImage longer = new BufferedImage(640, 450, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = longer.createGraphics();
+        graphics.drawImage(rgb, 0, 0, null);
+        graphics.dispose();
+        VisualDiff.Result taller = new VisualDiff(0).compare(rgb, longer);
+        Assert.assertEquals(taller.getChangedPixels(), 640 * 50);
+        Assert.assertEquals(taller.getMask().getHeight(), 450);
+    }
+
+    @Test(description = "A full-page 4K capture compares in tens of milliseconds")
+    public void testLargeCapture() {
+        BufferedImage baseline = page(3840, 2160);
+        BufferedImage actual = copy(baseline, BufferedImage.TYPE_3BYTE_BGR);
+        fill(actual, new Rectangle(2000, 900, 300, 40), Color.RED);
+        VisualDiff diff = new VisualDiff(8);
+        for (int warmup = 0; warmup < 3; warmup++) {
+            diff.compare(baseline, actual);
+        }
+        VisualDiff.Result result = diff.compare(baseline, actual);
+        System.out.println("✓ Compared 3840x2160 in " + result.getElapsedMillis() + " ms");
+        Assert.assertEquals(result.getChangedPixels(), 300 * 40);
+    }
+
+    @Test(description = "The first capture becomes the baseline; later differences write a diff mask")
+    public void testBaselineRecordAndCompare() throws Exception {
+        File dir = Files.createTempDirectory("visual").toFile();
+        try {
+            File baselines = new File(dir, "baselines");
+            File reports = new File(dir, "reports");
+            VisualBaseline visual = new VisualBaseline(baselines.toPath(), reports.toPath());
+            BufferedImage page = page(640, 400);
+
+            Assert.assertTrue(visual.matches("cart", png(page)));
+            Assert.assertTrue(new File(baselines, "cart.png").isFile());
+            Assert.assertTrue(visual.matches("cart", png(page)));
+            Assert.assertFalse(reports.exists(), "No mask for an unchanged capture");
+
+            BufferedImage changed = copy(page, BufferedImage.TYPE_INT_RGB);
+            fill(changed, new Rectangle(100, 100, 200, 100), Color.BLACK);
+            // The default gate only reports
+            Assert.assertTrue(visual.matches("cart", png(changed)));
+            File[] masks = reports.listFiles((unused, name) -> name.startsWith("VisualDiff_cart_"));
+            Assert.assertNotNull(masks);
+            Assert.assertEquals(masks.length, 1);
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test(description = "A failing gate rejects changes and comparison errors; bad ignore regions fail at startup")
+    public void testFailingGate() throws Exception {
+        File dir = Files.createTempDirectory("visual").toFile();
+        try {
+            File baselines = new File(dir, "baselines");
+            VisualBaseline visual = new VisualBaseline(baselines.toPath(), new File(dir, "reports").toPath(),
+                    "fail", "0,0,640,40");
+            BufferedImage page = page(640, 400);
+            Assert.assertTrue(visual.matches("cart", png(page)));
+
+            // Only the ignored header changes
+            BufferedImage header = copy(page, BufferedImage.TYPE_INT_RGB);
+            fill(header, new Rectangle(0, 0, 640, 40), Color.RED);
+            Assert.assertTrue(visual.matches("cart", png(header)));
+
+            BufferedImage changed = copy(page, BufferedImage.TYPE_INT_RGB);
+            fill(changed, new Rectangle(100, 100, 200, 100), Color.BLACK);
+            Assert.assertFalse(visual.matches("cart", png(changed)));
+            Assert.assertFalse(visual.matches("cart", null), "A failed capture can't pass");
+
+            Files.write(new File(baselines, "cart.png").toPath(), new byte[]{1, 2, 3});
+            Assert.assertFalse(visual.matches("cart", png(page)), "An unreadable baseline can't pass");
+
+            Assert.assertThrows(IllegalArgumentException.class, () ->
+                    new VisualBaseline(baselines.toPath(), dir.toPath(), "fail", "10,10,20"));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    // A header bar, a product tile and text-like stripes on a light background
+    private static BufferedImage page(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        fill(image, new Rectangle(0, 0, width, height), new Color(245, 245, 245));
+        fill(image, new Rectangle(0, 0, width, height / 10), new Color(20, 20, 20));
+        fill(image, new Rectangle(width / 12, height / 5, width / 3, height / 2), new Color(200, 210, 230));
+        for (int y = height / 5; y < height * 7 / 10; y += 24) {
+            fill(image, new Rectangle(width / 2, y, width * 2 / 5, 10), new Color(60, 60, 60));
+        }
+        return image;
+    }
+
+    // Every channel of every pixel brightened by amount
+    private static BufferedImage shifted(BufferedImage source, int amount) {
+        BufferedImage shifted = copy(source, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < shifted.getHeight(); y++) {
+            for (int x = 0; x < shifted.getWidth(); x++) {
+                int rgb = shifted.getRGB(x, y);
+                int r = Math.min(255, ((rgb >> 16) & 0xff) + amount);
+                int g = Math.min(255, ((rgb >> 8) & 0xff) + amount);
+                int b = Math.min(255, (rgb & 0xff) + amount);
+                shifted.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return shifted;
+    }
+
+    private static void fill(BufferedImage image, Rectangle area, Color color) {
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fill(area);
+        graphics.dispose();
+    }
+
+    private static BufferedImage copy(BufferedImage source, int type) {
+        BufferedImage copy = new BufferedImage(source.getWidth(), source.getHeight(), type);
+        Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(source, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+
+    private static byte[] png(BufferedImage image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}